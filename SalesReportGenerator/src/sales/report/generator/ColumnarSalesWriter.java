@@ -0,0 +1,145 @@
+package sales.report.generator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import sales.util.ColumnarFormat;
+
+/**
+ * The ColumnarSalesWriter class writes sales in the binary columnar format described by
+ * {@link ColumnarFormat}. Rows are buffered into primitive columns and written one block at a
+ * time; the file header is completed when the writer is closed.
+ */
+public class ColumnarSalesWriter implements AutoCloseable {
+    private final FileChannel channel;
+    private final int blockRows;
+    private final long sourceSize;
+    private final long sourceModified;
+    private final long[] documents;
+    private final int[] productIds;
+    private final int[] quantities;
+    private final ByteBuffer block;
+    private int rows;
+    private int blockCount;
+    private long rowCount;
+
+    /**
+     * Creates a writer for the given file, replacing any existing content.
+     *
+     * @param file The file to write.
+     * @throws IOException If the file cannot be opened.
+     */
+    public ColumnarSalesWriter(File file) throws IOException {
+        this(file, ColumnarFormat.DEFAULT_BLOCK_ROWS);
+    }
+
+    /**
+     * Creates a writer for the given file with the given number of rows per block.
+     *
+     * @param file The file to write.
+     * @param blockRows The maximum number of rows in each block.
+     * @throws IOException If the file cannot be opened.
+     */
+    public ColumnarSalesWriter(File file, int blockRows) throws IOException {
+        this(file, blockRows, ColumnarFormat.NO_SOURCE, ColumnarFormat.NO_SOURCE);
+    }
+
+    /**
+     * Creates a writer for the given file, recording the size and modification time of the
+     * text file it is converted from.
+     *
+     * @param file The file to write.
+     * @param sourceSize The size of the text file, taken before it is read.
+     * @param sourceModified The modification time of the text file, taken before it is read.
+     * @throws IOException If the file cannot be opened.
+     */
+    public ColumnarSalesWriter(File file, long sourceSize, long sourceModified) throws IOException {
+        this(file, ColumnarFormat.DEFAULT_BLOCK_ROWS, sourceSize, sourceModified);
+    }
+
+    private ColumnarSalesWriter(File file, int blockRows, long sourceSize, long sourceModified) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.blockRows = blockRows;
+        this.sourceSize = sourceSize;
+        this.sourceModified = sourceModified;
+        this.documents = new long[blockRows];
+        this.productIds = new int[blockRows];
+        this.quantities = new int[blockRows];
+        this.block = ByteBuffer.allocate(ColumnarFormat.BLOCK_HEADER_SIZE + blockRows * ColumnarFormat.ROW_SIZE);
+        channel.position(ColumnarFormat.FILE_HEADER_SIZE);
+    }
+
+    /**
+     * Appends a sale to the file.
+     *
+     * @param sellerDocumentNumber The document number of the seller involved in the sale.
+     * @param productId The ID of the product sold.
+     * @param quantity The quantity of the product sold.
+     * @throws IOException If an I/O error occurs while writing a full block.
+     */
+    public void write(long sellerDocumentNumber, int productId, int quantity) throws IOException {
+        documents[rows] = sellerDocumentNumber;
+        productIds[rows] = productId;
+        quantities[rows] = quantity;
+        if (++rows == blockRows) {
+            flushBlock();
+        }
+    }
+
+    /**
+     * Writes the pending rows and the file header, then closes the file.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (rows > 0) {
+                flushBlock();
+            }
+            ByteBuffer header = ByteBuffer.allocate(ColumnarFormat.FILE_HEADER_SIZE);
+            header.putInt(ColumnarFormat.MAGIC)
+                  .putInt(ColumnarFormat.VERSION)
+                  .putInt(blockRows)
+                  .putInt(blockCount)
+                  .putLong(rowCount)
+                  .putLong(sourceSize)
+                  .putLong(sourceModified)
+                  .flip();
+            writeFully(header, 0);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void flushBlock() throws IOException {
+        block.clear();
+        block.putInt(rows);
+        for (int i = 0; i < rows; i++) {
+            block.putLong(documents[i]);
+        }
+        for (int i = 0; i < rows; i++) {
+            block.putInt(productIds[i]);
+        }
+        for (int i = 0; i < rows; i++) {
+            block.putInt(quantities[i]);
+        }
+        block.flip();
+        while (block.hasRemaining()) {
+            channel.write(block);
+        }
+
+        rowCount += rows;
+        blockCount++;
+        rows = 0;
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
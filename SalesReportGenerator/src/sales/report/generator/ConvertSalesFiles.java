@@ -0,0 +1,100 @@
+package sales.report.generator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import sales.report.processor.Quarantine;
+import sales.report.processor.ReadStats;
+import sales.report.processor.SalesFileParser;
+import sales.util.Constants;
+
+/**
+ * The ConvertSalesFiles class converts the Vendedor_*.txt files in the 'data' directory into
+ * the binary columnar format, so that later report runs read the columns directly instead of
+ * parsing text. The text files are left in place; the report processor prefers the columnar
+ * file of a seller as long as the text file still has the size and modification time recorded
+ * in the columnar file's header when it was converted.
+ *
+ * <p>A columnar file holds sales only, so it has no room for the lines the processor would
+ * send to its quarantine. Text files with malformed lines are therefore not converted: they
+ * stay the only input of their seller and the processor keeps reporting those lines.</p>
+ */
+public class ConvertSalesFiles {
+
+    /**
+     * Main method that converts every text sales file in the 'data' directory.
+     *
+     * @param args Command-line arguments (not used).
+     */
+    public static void main(String[] args) {
+        try {
+            File dataDir = new File(Constants.DATA_DIRECTORY);
+            File[] textFiles = dataDir.listFiles((d, name) -> name.matches("Vendedor_\\d+\\.txt"));
+            int converted = 0;
+            if (textFiles != null) {
+                SalesFileParser parser = new SalesFileParser();
+                for (File textFile : textFiles) {
+                    if (convert(parser, textFile)) {
+                        converted++;
+                    }
+                }
+            }
+            System.out.println("Se han convertido " + converted + " archivos de ventas al formato columnar.");
+        } catch (IOException e) {
+            System.err.println("Error al convertir los archivos: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Converts a single text sales file into a columnar file for the same seller. The columns
+     * are written to a temporary file that replaces the columnar file only once the whole text
+     * file has been converted, so a failed conversion never leaves a truncated columnar file
+     * that would be read instead of the text. A text file with malformed lines is refused, and
+     * a columnar file left for it by an earlier conversion is deleted.
+     *
+     * @param parser The parser used to read the text file.
+     * @param textFile The text sales file.
+     * @return true if the file was converted, false if it was refused.
+     * @throws IOException If an I/O error occurs while reading or writing.
+     */
+    private static boolean convert(SalesFileParser parser, File textFile) throws IOException {
+        String name = textFile.getName();
+        String sellerDocumentNumber = name.substring("Vendedor_".length(), name.length() - ".txt".length());
+        File columnarFile = FileWriter.columnarSalesFile(sellerDocumentNumber);
+        File temp = new File(columnarFile.getParentFile(), columnarFile.getName() + ".tmp");
+        Quarantine quarantine = Quarantine.counting();
+        boolean converted = false;
+        // Taken before reading, so a text file rewritten during the conversion no longer matches
+        long sourceSize = textFile.length();
+        long sourceModified = textFile.lastModified();
+        try {
+            try (ColumnarSalesWriter writer = new ColumnarSalesWriter(temp, sourceSize, sourceModified)) {
+                parser.parse(textFile.toPath(), (document, productId, quantity) -> {
+                    try {
+                        writer.write(document, productId, quantity);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, new ReadStats(), quarantine);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            if (quarantine.getTotal() > 0) {
+                Files.deleteIfExists(columnarFile.toPath());
+                System.err.println("No se ha convertido " + name + ": tiene " + quarantine.getTotal()
+                        + " lneas invlidas, que solo se informan al procesar el archivo de texto.");
+                return false;
+            }
+            Files.move(temp.toPath(), columnarFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            converted = true;
+        } finally {
+            if (!converted) {
+                Files.deleteIfExists(temp.toPath());
+            }
+        }
+        return true;
+    }
+}
@@ -1,12 +1,16 @@
 package sales.report.generator;
 
 import java.util.Random;
+import java.util.SplittableRandom;
 import sales.util.Constants;
 
 /**
  * The DataGenerator class provides methods to generate random data for 
  * document types, names, products, and prices. It is used to simulate 
  * the creation of sales and product information in a sales report system.
+ * The overloads that take a SplittableRandom draw from a generator owned by
+ * the caller, so parallel generators neither contend on shared state nor
+ * lose reproducibility.
  */
 public class DataGenerator {
     private static final Random RANDOM = new Random();
@@ -64,4 +68,54 @@ public class DataGenerator {
     public static long generateDocumentNumber() {
         return 1000000000L + RANDOM.nextInt(1000000000);
     }
+
+    /**
+     * Generates a random document type using the given generator.
+     *
+     * @param random The generator to draw from.
+     * @return A random document type as a String.
+     */
+    public static String generateDocumentType(SplittableRandom random) {
+        return Constants.DOCUMENT_TYPES[random.nextInt(Constants.DOCUMENT_TYPES.length)];
+    }
+
+    /**
+     * Generates a random first name using the given generator.
+     *
+     * @param random The generator to draw from.
+     * @return A random first name as a String.
+     */
+    public static String generateName(SplittableRandom random) {
+        return Constants.FIRST_NAMES[random.nextInt(Constants.FIRST_NAMES.length)];
+    }
+
+    /**
+     * Generates a random last name using the given generator.
+     *
+     * @param random The generator to draw from.
+     * @return A random last name as a String.
+     */
+    public static String generateLastName(SplittableRandom random) {
+        return Constants.LAST_NAMES[random.nextInt(Constants.LAST_NAMES.length)];
+    }
+
+    /**
+     * Generates a random product name using the given generator.
+     *
+     * @param random The generator to draw from.
+     * @return A random product name as a String.
+     */
+    public static String generateProductName(SplittableRandom random) {
+        return Constants.PRODUCTS[random.nextInt(Constants.PRODUCTS.length)];
+    }
+
+    /**
+     * Generates a random product price between 10.0 and 1000.0 using the given generator.
+     *
+     * @param random The generator to draw from.
+     * @return A random price as a double.
+     */
+    public static double generatePrice(SplittableRandom random) {
+        return 10.0 + (1000.0 - 10.0) * random.nextDouble();
+    }
 }
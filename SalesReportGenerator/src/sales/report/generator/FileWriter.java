@@ -2,11 +2,12 @@ package sales.report.generator;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.util.List;
 import sales.report.model.Product;
 import sales.report.model.Seller;
+import sales.util.ColumnarFormat;
 import sales.util.Constants;
+import sales.util.CsvWriter;
 
 /**
  * The FileWriter class is responsible for writing data related to sellers, products, 
@@ -27,12 +28,13 @@ public class FileWriter {
         if (!dataDir.exists()) {
             dataDir.mkdir(); // Create the directory if it doesn't exist
         }
-        try (PrintWriter writer = new PrintWriter(new java.io.FileWriter(new File(dataDir, Constants.SELLERS_FILE)))) {
-            writer.println("TipoDocumento;NmeroDocumento;NombresVendedor;ApellidosVendedor");
+        try (CsvWriter writer = new CsvWriter(new File(dataDir, Constants.SELLERS_FILE))) {
+            writer.writeLine("TipoDocumento;NmeroDocumento;NombresVendedor;ApellidosVendedor");
             for (Seller seller : sellers) {
-                writer.printf("%s;%d;%s;%s%n", 
-                    seller.getDocumentType(), seller.getDocumentNumber(),
-                    seller.getFirstName(), seller.getLastName());
+                writer.write(seller.getDocumentType()).separator()
+                      .write(seller.getDocumentNumber()).separator()
+                      .write(seller.getFirstName()).separator()
+                      .write(seller.getLastName()).endRow();
             }
         }
     }
@@ -49,10 +51,12 @@ public class FileWriter {
         if (!dataDir.exists()) {
             dataDir.mkdir(); // Create the directory if it doesn't exist
         }
-        try (PrintWriter writer = new PrintWriter(new java.io.FileWriter(new File(dataDir, Constants.PRODUCTS_FILE)))) {
-            writer.println("IDProducto;NombreProducto;PrecioPorUnidadProducto");
+        try (CsvWriter writer = new CsvWriter(new File(dataDir, Constants.PRODUCTS_FILE))) {
+            writer.writeLine("IDProducto;NombreProducto;PrecioPorUnidadProducto");
             for (Product product : products) {
-                writer.printf("%d;%s;%.2f%n", product.getId(), product.getName(), product.getPrice());
+                writer.write(product.getId()).separator()
+                      .write(product.getName()).separator()
+                      .writeCents(product.getPriceCents()).endRow();
             }
         }
     }
@@ -71,11 +75,66 @@ public class FileWriter {
         if (!dataDir.exists()) {
             dataDir.mkdir(); // Create the directory if it doesn't exist
         }
-        try (PrintWriter writer = new PrintWriter(new java.io.FileWriter(new File(dataDir, "Vendedor_" + sellerDocumentNumber + ".txt")))) {
-            writer.println("NmeroDocumentoVendedor;IDProducto;CantidadProductoVendido");
+        try (CsvWriter writer = new CsvWriter(new File(dataDir, "Vendedor_" + sellerDocumentNumber + ".txt"))) {
+            writer.writeLine("NmeroDocumentoVendedor;IDProducto;CantidadProductoVendido");
             for (String sale : sales) {
-                writer.println(sale);
+                writer.writeLine(sale);
             }
         }
     }
+
+    /**
+     * Opens the text sales file of a specific seller for streaming and writes its header.
+     * Rows are appended by the caller, so a seller's sales never need to be held in memory.
+     *
+     * @param sellerDocumentNumber The document number of the seller.
+     * @return A writer positioned after the header, which the caller must close.
+     * @throws IOException If the file cannot be created.
+     */
+    public static CsvWriter openSalesFile(String sellerDocumentNumber) throws IOException {
+        File dataDir = new File(Constants.DATA_DIRECTORY);
+        if (!dataDir.exists()) {
+            dataDir.mkdir(); // Create the directory if it doesn't exist
+        }
+        CsvWriter writer = new CsvWriter(new File(dataDir, "Vendedor_" + sellerDocumentNumber + ".txt"));
+        try {
+            writer.writeLine("NmeroDocumentoVendedor;IDProducto;CantidadProductoVendido");
+        } catch (IOException e) {
+            try {
+                writer.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        return writer;
+    }
+
+    /**
+     * Opens a columnar sales file for a specific seller. The file is named after the seller's
+     * document number like the text sales file, with the columnar extension, and is saved in
+     * the directory specified by DATA_DIRECTORY.
+     *
+     * @param sellerDocumentNumber The document number of the seller.
+     * @return A writer for the seller's columnar sales file, which the caller must close.
+     * @throws IOException If the file cannot be created.
+     */
+    public static ColumnarSalesWriter openColumnarSalesFile(String sellerDocumentNumber) throws IOException {
+        return new ColumnarSalesWriter(columnarSalesFile(sellerDocumentNumber));
+    }
+
+    /**
+     * Returns the columnar sales file of a specific seller, creating the directory specified
+     * by DATA_DIRECTORY if needed.
+     *
+     * @param sellerDocumentNumber The document number of the seller.
+     * @return The seller's columnar sales file, which may not exist yet.
+     */
+    public static File columnarSalesFile(String sellerDocumentNumber) {
+        File dataDir = new File(Constants.DATA_DIRECTORY);
+        if (!dataDir.exists()) {
+            dataDir.mkdir(); // Create the directory if it doesn't exist
+        }
+        return new File(dataDir, "Vendedor_" + sellerDocumentNumber + ColumnarFormat.EXTENSION);
+    }
 }
@@ -0,0 +1,220 @@
+package sales.report.generator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import sales.report.model.Product;
+import sales.report.model.Seller;
+import sales.util.Constants;
+import sales.util.CsvWriter;
+
+/**
+ * The LoadTestGenerator class generates production-sized datasets for benchmarking the report
+ * processor. Sales files are written in parallel and streamed straight to disk, so memory use
+ * does not grow with the number of sales. Every seller and product draws from its own
+ * SplittableRandom derived from the seed, and every seller's sales from one split off it, so
+ * the same options always produce the same files, whatever the number of threads. Product popularity can be skewed with a Zipf exponent.
+ *
+ * <p>Options: {@code --sellers=N}, {@code --products=N}, {@code --sales-per-seller=N},
+ * {@code --threads=N}, {@code --seed=N}, {@code --zipf=S} (0 for uniform) and
+ * {@code --columnar} to write Vendedor_*.col files instead of text files.</p>
+ */
+public class LoadTestGenerator {
+    // Multiplier coprime with 10^9, so that seller indexes map to distinct document numbers
+    private static final long DOCUMENT_STRIDE = 387420489L;
+    private static final long DOCUMENT_RANGE = 1000000000L;
+
+    private int sellerCount = Constants.SALESMAN_COUNT;
+    private int productCount = Constants.PRODUCTS_COUNT;
+    private int salesPerSeller = Constants.SALES_PER_SALESMAN;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long seed = 42;
+    private double zipfExponent = 0;
+    private boolean columnar;
+
+    /**
+     * Main method that parses the options and generates the dataset in the 'data' directory.
+     *
+     * @param args Command-line options, described in the class documentation.
+     */
+    public static void main(String[] args) {
+        LoadTestGenerator generator = new LoadTestGenerator();
+        try {
+            generator.parseOptions(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return;
+        }
+
+        try {
+            long start = System.nanoTime();
+            long sales = generator.generate();
+            System.out.printf("Generados %d vendedores, %d productos y %d ventas en %.1f s.%n",
+                generator.sellerCount, generator.productCount, sales, (System.nanoTime() - start) / 1e9);
+        } catch (IOException e) {
+            System.err.println("Error al generar los archivos: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Generates the sellers file, the products file and one sales file per seller.
+     *
+     * @return The total number of sales written.
+     * @throws IOException If an I/O error occurs when writing the files.
+     */
+    public long generate() throws IOException {
+        List<Seller> sellers = new ArrayList<>(sellerCount);
+        for (int i = 0; i < sellerCount; i++) {
+            sellers.add(generateSeller(i));
+        }
+        List<Product> products = new ArrayList<>(productCount);
+        for (int i = 1; i <= productCount; i++) {
+            SplittableRandom random = randomFor(-i);
+            products.add(new Product(i, DataGenerator.generateProductName(random), DataGenerator.generatePrice(random)));
+        }
+        FileWriter.writeSellersFile(sellers);
+        FileWriter.writeProductsFile(products);
+
+        ZipfDistribution popularity = new ZipfDistribution(productCount, zipfExponent);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> tasks = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++) {
+                int first = t;
+                tasks.add(pool.submit(() -> {
+                    // Sellers are dealt round-robin so that every thread gets a similar share
+                    for (int i = first; i < sellerCount; i += threads) {
+                        writeSales(sellers.get(i).getDocumentNumber(), salesRandomFor(i), popularity);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Generacin interrumpida", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return (long) sellerCount * salesPerSeller;
+    }
+
+    private Seller generateSeller(int index) {
+        SplittableRandom random = randomFor(index);
+        long documentNumber = DOCUMENT_RANGE + Math.floorMod(index * DOCUMENT_STRIDE + Math.floorMod(seed, DOCUMENT_RANGE), DOCUMENT_RANGE);
+        return new Seller(
+            DataGenerator.generateDocumentType(random),
+            documentNumber,
+            DataGenerator.generateName(random),
+            DataGenerator.generateLastName(random)
+        );
+    }
+
+    /**
+     * Streams the sales of one seller to its sales file.
+     *
+     * @param documentNumber The document number of the seller.
+     * @param random The generator owned by this seller.
+     * @param popularity The distribution used to pick products.
+     * @throws IOException If an I/O error occurs when writing the file.
+     */
+    private void writeSales(long documentNumber, SplittableRandom random, ZipfDistribution popularity) throws IOException {
+        String document = String.valueOf(documentNumber);
+        if (columnar) {
+            try (ColumnarSalesWriter writer = FileWriter.openColumnarSalesFile(document)) {
+                for (int i = 0; i < salesPerSeller; i++) {
+                    writer.write(documentNumber, popularity.sample(random), random.nextInt(10) + 1);
+                }
+            }
+        } else {
+            try (CsvWriter writer = FileWriter.openSalesFile(document)) {
+                for (int i = 0; i < salesPerSeller; i++) {
+                    writer.write(documentNumber).separator()
+                          .write(popularity.sample(random)).separator()
+                          .write(random.nextInt(10) + 1).endRow();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the generator of the sales of one seller. It is split from the seller's own
+     * generator, so the sales do not replay the draws that picked the seller's attributes.
+     */
+    private SplittableRandom salesRandomFor(int index) {
+        return randomFor(index).split();
+    }
+
+    /**
+     * Returns the generator of one seller (non-negative key) or product (negative key).
+     */
+    private SplittableRandom randomFor(long key) {
+        long z = seed + key * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return new SplittableRandom(z ^ (z >>> 31));
+    }
+
+    private void parseOptions(String[] args) {
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            String name = eq < 0 ? arg : arg.substring(0, eq);
+            String value = eq < 0 ? null : arg.substring(eq + 1);
+            try {
+                switch (name) {
+                    case "--sellers":
+                        sellerCount = positive(name, Integer.parseInt(value));
+                        break;
+                    case "--products":
+                        productCount = positive(name, Integer.parseInt(value));
+                        break;
+                    case "--sales-per-seller":
+                        salesPerSeller = positive(name, Integer.parseInt(value));
+                        break;
+                    case "--threads":
+                        threads = positive(name, Integer.parseInt(value));
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(value);
+                        break;
+                    case "--zipf":
+                        zipfExponent = Double.parseDouble(value);
+                        if (zipfExponent < 0) {
+                            throw new IllegalArgumentException("Valor invlido para " + name + ": " + value);
+                        }
+                        break;
+                    case "--columnar":
+                        columnar = true;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Opcin desconocida: " + arg);
+                }
+            } catch (NumberFormatException | NullPointerException e) {
+                throw new IllegalArgumentException("Valor invlido para " + name + ": " + value);
+            }
+        }
+        if (sellerCount > DOCUMENT_RANGE) {
+            throw new IllegalArgumentException("Demasiados vendedores: " + sellerCount);
+        }
+    }
+
+    private static int positive(String name, int value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException("Valor invlido para " + name + ": " + value);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,47 @@
+package sales.report.generator;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * The ZipfDistribution class samples ranks 1..n where rank k is drawn with probability
+ * proportional to 1 / k^s. An exponent of 0 gives a uniform distribution; larger exponents
+ * concentrate the samples on the lowest ranks. The cumulative table is built once and is
+ * read-only afterwards, so one instance can be shared by any number of threads.
+ */
+public class ZipfDistribution {
+    private final double[] cumulative;
+
+    /**
+     * Builds the distribution.
+     *
+     * @param n The number of ranks.
+     * @param exponent The skew exponent, 0 or greater.
+     */
+    public ZipfDistribution(int n, double exponent) {
+        if (n <= 0 || exponent < 0) {
+            throw new IllegalArgumentException("Parmetros invlidos: n=" + n + ", s=" + exponent);
+        }
+        cumulative = new double[n];
+        double sum = 0;
+        for (int k = 1; k <= n; k++) {
+            sum += 1.0 / Math.pow(k, exponent);
+            cumulative[k - 1] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cumulative[i] /= sum;
+        }
+        cumulative[n - 1] = 1.0;
+    }
+
+    /**
+     * Draws a rank using the given random number generator.
+     *
+     * @param random The generator to draw from, owned by the calling thread.
+     * @return A rank between 1 and n.
+     */
+    public int sample(SplittableRandom random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return (index >= 0 ? index : -index - 1) + 1;
+    }
+}
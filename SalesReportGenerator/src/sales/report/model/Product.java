@@ -1,36 +1,73 @@
 package sales.report.model;
 
+import sales.util.Decimals;
+
 /**
  * The Product class represents a product in the sales system. Each product has an ID, 
  * a name, a price, and a quantity representing how many units have been sold.
+ * The price is held as a whole number of cents so that it is exact.
  */
 public class Product {
     private int id;
     private String name;
-    private double price;
-    private int soldQuantity;
+    private int nameCode;
+    private long priceCents;
+    private long soldQuantity;
 
     /**
      * Constructs a Product with the specified ID, name, and price. The initial sold quantity is set to 0.
      *
      * @param id The unique identifier for the product.
      * @param name The name of the product.
-     * @param price The price of the product.
+     * @param price The price of the product, rounded to the nearest cent.
      */
     public Product(int id, String name, double price) {
+        this(id, name, Decimals.toCents(price));
+    }
+
+    /**
+     * Constructs a Product with the specified ID, name, and price in cents. The initial sold quantity is set to 0.
+     *
+     * @param id The unique identifier for the product.
+     * @param name The name of the product.
+     * @param priceCents The price of the product in cents.
+     */
+    public Product(int id, String name, long priceCents) {
+        this(id, name, -1, priceCents);
+    }
+
+    /**
+     * Constructs a Product whose name has been encoded with a {@link sales.util.NameDictionary}.
+     * The initial sold quantity is set to 0.
+     *
+     * @param id The unique identifier for the product.
+     * @param name The name of the product, as returned by the dictionary.
+     * @param nameCode The code of the name in the dictionary, or -1 if the name is not encoded.
+     * @param priceCents The price of the product in cents.
+     */
+    public Product(int id, String name, int nameCode, long priceCents) {
         this.id = id;
         this.name = name;
-        this.price = price;
+        this.nameCode = nameCode;
+        this.priceCents = priceCents;
         this.soldQuantity = 0; // Default sold quantity is 0
     }
 
+    /**
+     * Constructs a Product whose state is held elsewhere, for subclasses that override every
+     * getter and {@link #incrementSoldQuantity(long)}.
+     */
+    protected Product() {
+    }
+
     /**
      * Increases the quantity of the product that has been sold.
      *
      * @param quantity The quantity to add to the sold total.
+     * @throws ArithmeticException If the total overflows.
      */
-    public void incrementSoldQuantity(int quantity) {
-        soldQuantity += quantity;
+    public void incrementSoldQuantity(long quantity) {
+        soldQuantity = Math.addExact(soldQuantity, quantity);
     }
 
     // Getters for the product fields
@@ -53,13 +90,31 @@ public class Product {
         return name;
     }
 
+    /**
+     * Returns the code of the product name in the dictionary it was encoded with.
+     *
+     * @return The name code, or -1 if the name is not encoded.
+     */
+    public int getNameCode() {
+        return nameCode;
+    }
+
     /**
      * Returns the price of the product.
      *
      * @return The product price.
      */
     public double getPrice() {
-        return price;
+        return priceCents / 100.0;
+    }
+
+    /**
+     * Returns the price of the product in cents.
+     *
+     * @return The product price in cents.
+     */
+    public long getPriceCents() {
+        return priceCents;
     }
 
     /**
@@ -67,7 +122,7 @@ public class Product {
      *
      * @return The total sold quantity.
      */
-    public int getSoldQuantity() {
+    public long getSoldQuantity() {
         return soldQuantity;
     }
 }
@@ -0,0 +1,189 @@
+package sales.report.model;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import sales.util.IntColumn;
+import sales.util.LongColumn;
+import sales.util.LongIndex;
+import sales.util.NameDictionary;
+
+/**
+ * The ProductStore class holds products as a struct of arrays, as {@link SellerStore} does
+ * for sellers: IDs, name codes, prices and sold quantities live in off-heap columns and the
+ * names in a shared {@link NameDictionary}. The views returned by {@link #get(int)} and
+ * {@link #asList()} report the dictionary codes as their name codes, so the products report
+ * groups them without hashing names.
+ */
+public class ProductStore {
+    private final NameDictionary names = new NameDictionary();
+    private final IntColumn ids;
+    private final IntColumn nameCodes;
+    private final LongColumn priceCents;
+    private final LongColumn soldQuantities;
+    private final LongIndex index;
+    private int size;
+
+    /**
+     * Constructs an empty ProductStore.
+     *
+     * @param expectedProducts The number of products expected; the store grows past it if needed.
+     */
+    public ProductStore(int expectedProducts) {
+        ids = new IntColumn(expectedProducts);
+        nameCodes = new IntColumn(expectedProducts);
+        priceCents = new LongColumn(expectedProducts);
+        soldQuantities = new LongColumn(expectedProducts);
+        index = new LongIndex(expectedProducts);
+    }
+
+    /**
+     * Adds a product with no sales. When several products share an ID, lookups find the
+     * first one.
+     *
+     * @param id The ID of the product.
+     * @param name The name of the product.
+     * @param price The price of the product in cents.
+     * @return The slot of the new product.
+     */
+    public int add(int id, String name, long price) {
+        int slot = size;
+        int capacity = slot + 1;
+        ids.ensureCapacity(capacity);
+        nameCodes.ensureCapacity(capacity);
+        priceCents.ensureCapacity(capacity);
+        soldQuantities.ensureCapacity(capacity);
+
+        ids.set(slot, id);
+        nameCodes.set(slot, names.encode(name));
+        priceCents.set(slot, price);
+        index.putIfAbsent(id, slot);
+        size++;
+        return slot;
+    }
+
+    /**
+     * Returns the slot of the product with the given ID.
+     *
+     * @param id The product ID.
+     * @return The slot, or -1 if no product has that ID.
+     */
+    public int slotOf(int id) {
+        return index.get(id);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getId(int slot) {
+        return ids.get(slot);
+    }
+
+    public String getName(int slot) {
+        return names.decode(nameCodes.get(slot));
+    }
+
+    public int getNameCode(int slot) {
+        return nameCodes.get(slot);
+    }
+
+    public long getPriceCents(int slot) {
+        return priceCents.get(slot);
+    }
+
+    public long getSoldQuantity(int slot) {
+        return soldQuantities.get(slot);
+    }
+
+    /**
+     * Increases the sold quantity of a product.
+     *
+     * @param slot The slot of the product.
+     * @param quantity The quantity to add to the sold total.
+     * @throws ArithmeticException If the total overflows.
+     */
+    public void incrementSoldQuantity(int slot, long quantity) {
+        soldQuantities.set(slot, Math.addExact(soldQuantities.get(slot), quantity));
+    }
+
+    /**
+     * Returns a view of the product in the given slot.
+     *
+     * @param slot The slot of the product.
+     * @return A Product backed by this store.
+     */
+    public Product get(int slot) {
+        return new View(slot);
+    }
+
+    /**
+     * Returns a list view of all products, in slot order.
+     *
+     * @return A read-only list whose elements are backed by this store.
+     */
+    public List<Product> asList() {
+        return new ViewList();
+    }
+
+    private class ViewList extends AbstractList<Product> implements RandomAccess {
+        @Override
+        public Product get(int slot) {
+            if (slot < 0 || slot >= size) {
+                throw new IndexOutOfBoundsException("Index: " + slot + ", Size: " + size);
+            }
+            return new View(slot);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * A product backed by one slot of the store.
+     */
+    private class View extends Product {
+        private final int slot;
+
+        View(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        public void incrementSoldQuantity(long quantity) {
+            ProductStore.this.incrementSoldQuantity(slot, quantity);
+        }
+
+        @Override
+        public int getId() {
+            return ProductStore.this.getId(slot);
+        }
+
+        @Override
+        public String getName() {
+            return ProductStore.this.getName(slot);
+        }
+
+        @Override
+        public int getNameCode() {
+            return ProductStore.this.getNameCode(slot);
+        }
+
+        @Override
+        public double getPrice() {
+            return getPriceCents() / 100.0;
+        }
+
+        @Override
+        public long getPriceCents() {
+            return ProductStore.this.getPriceCents(slot);
+        }
+
+        @Override
+        public long getSoldQuantity() {
+            return ProductStore.this.getSoldQuantity(slot);
+        }
+    }
+}
@@ -5,7 +5,7 @@ package sales.report.model;
  * of the seller, the product ID, and the quantity of the product sold in a particular sale.
  */
 public class Sale {
-    private String sellerDocumentNumber;
+    private long sellerDocumentNumber;
     private int productId;
     private int quantity;
 
@@ -16,7 +16,7 @@ public class Sale {
      * @param productId The ID of the product sold.
      * @param quantity The quantity of the product sold.
      */
-    public Sale(String sellerDocumentNumber, int productId, int quantity) {
+    public Sale(long sellerDocumentNumber, int productId, int quantity) {
         this.sellerDocumentNumber = sellerDocumentNumber;
         this.productId = productId;
         this.quantity = quantity;
@@ -29,7 +29,7 @@ public class Sale {
      *
      * @return The seller's document number.
      */
-    public String getSellerDocumentNumber() {
+    public long getSellerDocumentNumber() {
         return sellerDocumentNumber;
     }
 
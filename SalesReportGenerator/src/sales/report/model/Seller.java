@@ -1,15 +1,17 @@
 package sales.report.model;
 
+import sales.util.Money;
+
 /**
  * The Seller class represents a salesperson in the sales system. It contains the salesperson's
- * document information, name, and tracks their total sales.
+ * document information, name, and tracks their total sales in cents.
  */
 public class Seller {
     private String documentType;
     private long documentNumber;
     private String firstName;
     private String lastName;
-    private double totalSales;
+    private long totalSalesCents;
 
     /**
      * Constructs a Seller object with the specified document type, document number, first name, and last name.
@@ -24,16 +26,24 @@ public class Seller {
         this.documentNumber = documentNumber;
         this.firstName = firstName;
         this.lastName = lastName;
-        this.totalSales = 0;
+        this.totalSalesCents = 0;
+    }
+
+    /**
+     * Constructs a Seller whose state is held elsewhere, for subclasses that override every
+     * getter and {@link #addSale(long)}.
+     */
+    protected Seller() {
     }
 
     /**
      * Adds a sale to the seller's total sales.
      *
-     * @param amount The amount of the sale to be added to the total.
+     * @param amountCents The amount of the sale in cents to be added to the total.
+     * @throws ArithmeticException If the total overflows.
      */
-    public void addSale(double amount) {
-        totalSales += amount;
+    public void addSale(long amountCents) {
+        totalSalesCents = Money.add(totalSalesCents, amountCents);
     }
 
     // Getters for Seller fields
@@ -89,6 +99,15 @@ public class Seller {
      * @return The total sales amount.
      */
     public double getTotalSales() {
-        return totalSales;
+        return totalSalesCents / 100.0;
+    }
+
+    /**
+     * Returns the total sales amount of the seller in cents.
+     *
+     * @return The total sales amount in cents.
+     */
+    public long getTotalSalesCents() {
+        return totalSalesCents;
     }
 }
@@ -0,0 +1,204 @@
+package sales.report.model;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import sales.util.IntColumn;
+import sales.util.LongColumn;
+import sales.util.LongIndex;
+import sales.util.Money;
+import sales.util.NameDictionary;
+
+/**
+ * The SellerStore class holds sellers as a struct of arrays instead of one object each.
+ * Document numbers and sales totals live in off-heap columns; document types and names are
+ * encoded in a shared {@link NameDictionary} and stored as int codes. Sellers are addressed
+ * by slot, their position in the order they were added, and can be looked up by document
+ * number.
+ *
+ * <p>{@link #get(int)} and {@link #asList()} return lightweight {@link Seller} views that
+ * read and update the columns, so code written against Seller works unchanged; views are
+ * created on demand and hold nothing but their slot.</p>
+ */
+public class SellerStore {
+    private final NameDictionary names = new NameDictionary();
+    private final LongColumn documentNumbers;
+    private final LongColumn totalSalesCents;
+    private final IntColumn documentTypes;
+    private final IntColumn firstNames;
+    private final IntColumn lastNames;
+    private final LongIndex index;
+    private int size;
+
+    /**
+     * Constructs an empty SellerStore.
+     *
+     * @param expectedSellers The number of sellers expected; the store grows past it if needed.
+     */
+    public SellerStore(int expectedSellers) {
+        documentNumbers = new LongColumn(expectedSellers);
+        totalSalesCents = new LongColumn(expectedSellers);
+        documentTypes = new IntColumn(expectedSellers);
+        firstNames = new IntColumn(expectedSellers);
+        lastNames = new IntColumn(expectedSellers);
+        index = new LongIndex(expectedSellers);
+    }
+
+    /**
+     * Adds a seller with no sales. When several sellers share a document number, lookups
+     * find the first one, as with a list of Seller objects.
+     *
+     * @param documentType The type of the seller's document.
+     * @param documentNumber The document number of the seller.
+     * @param firstName The first name of the seller.
+     * @param lastName The last name of the seller.
+     * @return The slot of the new seller.
+     */
+    public int add(String documentType, long documentNumber, String firstName, String lastName) {
+        int slot = size;
+        int capacity = slot + 1;
+        documentNumbers.ensureCapacity(capacity);
+        totalSalesCents.ensureCapacity(capacity);
+        documentTypes.ensureCapacity(capacity);
+        firstNames.ensureCapacity(capacity);
+        lastNames.ensureCapacity(capacity);
+
+        documentNumbers.set(slot, documentNumber);
+        documentTypes.set(slot, names.encode(documentType));
+        firstNames.set(slot, names.encode(firstName));
+        lastNames.set(slot, names.encode(lastName));
+        index.putIfAbsent(documentNumber, slot);
+        size++;
+        return slot;
+    }
+
+    /**
+     * Returns the slot of the seller with the given document number.
+     *
+     * @param documentNumber The document number.
+     * @return The slot, or -1 if no seller has that document number.
+     */
+    public int slotOf(long documentNumber) {
+        return index.get(documentNumber);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getDocumentType(int slot) {
+        return names.decode(documentTypes.get(slot));
+    }
+
+    public long getDocumentNumber(int slot) {
+        return documentNumbers.get(slot);
+    }
+
+    public String getFirstName(int slot) {
+        return names.decode(firstNames.get(slot));
+    }
+
+    public String getLastName(int slot) {
+        return names.decode(lastNames.get(slot));
+    }
+
+    public long getTotalSalesCents(int slot) {
+        return totalSalesCents.get(slot);
+    }
+
+    /**
+     * Adds a sale to the total sales of a seller.
+     *
+     * @param slot The slot of the seller.
+     * @param amountCents The amount of the sale in cents.
+     * @throws ArithmeticException If the total overflows.
+     */
+    public void addSale(int slot, long amountCents) {
+        totalSalesCents.set(slot, Money.add(totalSalesCents.get(slot), amountCents));
+    }
+
+    /**
+     * Returns a view of the seller in the given slot.
+     *
+     * @param slot The slot of the seller.
+     * @return A Seller backed by this store.
+     */
+    public Seller get(int slot) {
+        return new View(slot);
+    }
+
+    /**
+     * Returns a list view of all sellers, in slot order.
+     *
+     * @return A read-only list whose elements are backed by this store.
+     */
+    public List<Seller> asList() {
+        return new ViewList();
+    }
+
+    private class ViewList extends AbstractList<Seller> implements RandomAccess {
+        @Override
+        public Seller get(int slot) {
+            if (slot < 0 || slot >= size) {
+                throw new IndexOutOfBoundsException("Index: " + slot + ", Size: " + size);
+            }
+            return new View(slot);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * A seller backed by one slot of the store.
+     */
+    private class View extends Seller {
+        private final int slot;
+
+        View(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        public void addSale(long amountCents) {
+            SellerStore.this.addSale(slot, amountCents);
+        }
+
+        @Override
+        public String getDocumentType() {
+            return SellerStore.this.getDocumentType(slot);
+        }
+
+        @Override
+        public long getDocumentNumber() {
+            return SellerStore.this.getDocumentNumber(slot);
+        }
+
+        @Override
+        public String getFirstName() {
+            return SellerStore.this.getFirstName(slot);
+        }
+
+        @Override
+        public String getLastName() {
+            return SellerStore.this.getLastName(slot);
+        }
+
+        @Override
+        public String getFullName() {
+            return getFirstName() + " " + getLastName();
+        }
+
+        @Override
+        public double getTotalSales() {
+            return getTotalSalesCents() / 100.0;
+        }
+
+        @Override
+        public long getTotalSalesCents() {
+            return SellerStore.this.getTotalSalesCents(slot);
+        }
+    }
+}
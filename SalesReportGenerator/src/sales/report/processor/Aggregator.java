@@ -0,0 +1,37 @@
+package sales.report.processor;
+
+/**
+ * An Aggregator accumulates sales into the sellers' total sales and the products' sold
+ * quantities, either one sale at a time or a whole {@link SalesTally} at once. Offered sales
+ * of unknown sellers or products are refused, and {@link #check} tells them apart without
+ * aggregating anything, so that they can be quarantined before a tally is built.
+ */
+public interface Aggregator extends SaleHandler, SaleFilter {
+
+    /**
+     * Adds every cell of a tally to the totals. Cells of unknown sellers or products are left
+     * out without being reported anywhere, so a tally should only hold sales this aggregator
+     * accepts, such as those of a {@link SalesSnapshot} updated with it as filter, which
+     * quarantines the others while it parses them.
+     *
+     * @param tally The tally to add.
+     */
+    void apply(SalesTally tally);
+
+    /**
+     * Returns new, empty totals over this aggregator's seller and product slots. The partial
+     * accepts and refuses sales as {@link #offerSale} does but keeps the totals to itself, so
+     * one thread can fill it without locks.
+     *
+     * @return The new partial.
+     */
+    PartialTotals newPartial();
+
+    /**
+     * Adds totals created by {@link #newPartial} to the sellers' total sales and the products'
+     * sold quantities, updating each seller and product once.
+     *
+     * @param partial The partial to add.
+     */
+    void addPartial(PartialTotals partial);
+}
@@ -0,0 +1,58 @@
+package sales.report.processor;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import sales.report.model.Product;
+import sales.report.model.Seller;
+import sales.util.BitmapIndex;
+
+/**
+ * The CatalogIndex class holds the bitmap indexes used to filter the reports: sellers by
+ * document type and products by name. It is built once, when the sellers and products are
+ * loaded, and selects rows by intersecting the bitmaps of each filtered column, so filtered
+ * reports only visit the rows they keep.
+ */
+public class CatalogIndex {
+    private final BitmapIndex<String> sellersByDocumentType;
+    private final BitmapIndex<String> productsByName;
+
+    /**
+     * Builds the indexes over the given sellers and products.
+     *
+     * @param sellers A list of sellers.
+     * @param products A list of products.
+     */
+    public CatalogIndex(List<Seller> sellers, List<Product> products) {
+        this.sellersByDocumentType = BitmapIndex.of(sellers, Seller::getDocumentType);
+        this.productsByName = BitmapIndex.of(products, Product::getName);
+    }
+
+    /**
+     * Selects the sellers that match the filter.
+     *
+     * @param documentTypes The document types to keep, or an empty collection for all of them.
+     * @return The positions of the selected sellers in the list the index was built from.
+     */
+    public BitSet selectSellers(Collection<String> documentTypes) {
+        BitSet selected = sellersByDocumentType.all();
+        if (!documentTypes.isEmpty()) {
+            selected.and(sellersByDocumentType.any(documentTypes));
+        }
+        return selected;
+    }
+
+    /**
+     * Selects the products that match the filter.
+     *
+     * @param names The product names to keep, or an empty collection for all of them.
+     * @return The positions of the selected products in the list the index was built from.
+     */
+    public BitSet selectProducts(Collection<String> names) {
+        BitSet selected = productsByName.all();
+        if (!names.isEmpty()) {
+            selected.and(productsByName.any(names));
+        }
+        return selected;
+    }
+}
@@ -0,0 +1,152 @@
+package sales.report.processor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import sales.util.ColumnarFormat;
+
+/**
+ * The ColumnarSalesReader class reads sales files written in the binary columnar format
+ * described by {@link ColumnarFormat}. The file is memory-mapped and each block's columns are
+ * read directly from the ByteBuffer, so no text parsing takes place.
+ */
+public class ColumnarSalesReader {
+
+    /**
+     * Reads a columnar sales file and passes each sale to the handler.
+     *
+     * @param file The columnar sales file.
+     * @param handler The handler that receives each sale.
+     * @throws IOException If an I/O error occurs or the file is not a valid columnar file.
+     */
+    public void parse(Path file, SaleHandler handler) throws IOException {
+        parse(file, handler, new ReadStats());
+    }
+
+    /**
+     * Reads a columnar sales file as {@link #parse(Path, SaleHandler)} does, counting its
+     * bytes and rows in the given statistics.
+     *
+     * @param file The columnar sales file.
+     * @param handler The handler that receives each sale.
+     * @param stats The statistics to add to.
+     * @throws IOException If an I/O error occurs or the file is not a valid columnar file.
+     */
+    public void parse(Path file, SaleHandler handler, ReadStats stats) throws IOException {
+        parse(file, handler, stats, Quarantine.counting());
+    }
+
+    /**
+     * Reads a columnar sales file as {@link #parse(Path, SaleHandler, ReadStats)} does,
+     * sending the sales the handler refuses to the given quarantine. Rows are numbered from 1.
+     *
+     * @param file The columnar sales file.
+     * @param handler The handler that receives each sale.
+     * @param stats The statistics to add to.
+     * @param quarantine The quarantine that receives the rejected rows.
+     * @throws IOException If an I/O error occurs or the file is not a valid columnar file.
+     */
+    public void parse(Path file, SaleHandler handler, ReadStats stats, Quarantine quarantine) throws IOException {
+        Quarantine.Source source = quarantine.source(file.getFileName().toString());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            stats.addBytes(size);
+            if (size < ColumnarFormat.FILE_HEADER_SIZE) {
+                throw invalid(file);
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, ColumnarFormat.FILE_HEADER_SIZE);
+            if (header.getInt() != ColumnarFormat.MAGIC || header.getInt() != ColumnarFormat.VERSION) {
+                throw invalid(file);
+            }
+            int blockRows = header.getInt();
+            int blockCount = header.getInt();
+            if (blockRows <= 0 || blockCount < 0) {
+                throw invalid(file);
+            }
+
+            long position = ColumnarFormat.FILE_HEADER_SIZE;
+            long maxBlockSize = ColumnarFormat.BLOCK_HEADER_SIZE + (long) blockRows * ColumnarFormat.ROW_SIZE;
+            for (int b = 0; b < blockCount; b++) {
+                if (size - position < ColumnarFormat.BLOCK_HEADER_SIZE) {
+                    // The header promises more blocks than the file holds
+                    throw invalid(file);
+                }
+                ByteBuffer block = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(maxBlockSize, size - position));
+                int rows = block.getInt(0);
+                long blockSize = ColumnarFormat.BLOCK_HEADER_SIZE + (long) rows * ColumnarFormat.ROW_SIZE;
+                if (rows < 0 || rows > blockRows || blockSize > block.capacity()) {
+                    throw invalid(file);
+                }
+                stats.addRejected(readBlock(block, rows, handler, source));
+                stats.addLines(rows);
+                position += blockSize;
+            }
+        }
+    }
+
+    /**
+     * Passes the rows of a block to the handler and returns the number it refused.
+     */
+    private static int readBlock(ByteBuffer block, int rows, SaleHandler handler, Quarantine.Source source) {
+        int documents = ColumnarFormat.BLOCK_HEADER_SIZE;
+        int productIds = documents + rows * 8;
+        int quantities = productIds + rows * 4;
+        int rejected = 0;
+        for (int i = 0; i < rows; i++) {
+            long document = block.getLong(documents + i * 8);
+            int productId = block.getInt(productIds + i * 4);
+            int quantity = block.getInt(quantities + i * 4);
+            RejectReason reason = handler.offerSale(document, productId, quantity);
+            if (reason != null) {
+                rejected++;
+                source.reject(source.getLine() + i + 1, reason, document + ";" + productId + ";" + quantity);
+            }
+        }
+        source.setLine(source.getLine() + rows);
+        return rejected;
+    }
+
+    /**
+     * Tells whether a columnar file still holds the sales of the text file it was converted
+     * from: the text file must have the size and modification time recorded in its header.
+     * A columnar file written directly, with no source, is current only if it was modified
+     * strictly after the text file, so that a text file rewritten
+     * within the resolution of a coarse file system clock is not passed over.
+     *
+     * @param columnar The columnar sales file.
+     * @param text The text sales file of the same seller.
+     * @return true if the columnar file should be read instead of the text file, false if
+     *         not or if its header cannot be read.
+     */
+    public static boolean isCurrent(File columnar, File text) {
+        try (FileChannel channel = FileChannel.open(columnar.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(ColumnarFormat.FILE_HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Keep reading until the header is complete or the file ends
+            }
+            header.flip();
+            if (header.remaining() < ColumnarFormat.FILE_HEADER_SIZE || header.getInt() != ColumnarFormat.MAGIC
+                    || header.getInt() != ColumnarFormat.VERSION) {
+                return false;
+            }
+            // Past the rows per block, block count and row count
+            header.position(header.position() + 4 + 4 + 8);
+            long sourceSize = header.getLong();
+            long sourceModified = header.getLong();
+            if (sourceSize == ColumnarFormat.NO_SOURCE) {
+                return columnar.lastModified() > text.lastModified();
+            }
+            return sourceSize == text.length() && sourceModified == text.lastModified();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static IOException invalid(Path file) {
+        return new IOException("Archivo columnar invlido: " + file);
+    }
+}
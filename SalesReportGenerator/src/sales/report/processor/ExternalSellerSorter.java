@@ -0,0 +1,286 @@
+package sales.report.processor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import sales.report.model.Seller;
+import sales.report.model.SellerStore;
+
+/**
+ * The ExternalSellerSorter class ranks the sellers of a {@link SellerStore} by descending
+ * total sales with a bounded amount of heap. Slots of the store are collected up to a budget,
+ * sorted on the store's totals column and spilled to a temporary run file; the runs are then
+ * merged with a k-way merge while the ranking is read back. Each run holds complete report
+ * rows read straight from the store's columns, so no Seller object is created until the
+ * ranking is read back, one row at a time.
+ *
+ * <p>Runs are sorted with a stable sort and ties between runs are broken by run order, so the
+ * ranking is exactly the one a stable in-memory sort of all the slots would produce.</p>
+ */
+public class ExternalSellerSorter implements AutoCloseable {
+    /** Maximum number of runs merged at once; more runs are merged in several passes. */
+    static final int MAX_FAN_IN = 64;
+
+    private static final Comparator<RunReader> BY_HEAD =
+        Comparator.<RunReader>comparingLong(reader -> reader.head.getTotalSalesCents()).reversed()
+                  .thenComparingInt(reader -> reader.index);
+
+    private final SellerStore store;
+    private final File tempDirectory;
+    private final int[] buffer;
+    private final int[] sortBuffer;
+    private int buffered;
+    private final List<Run> runs = new ArrayList<>();
+    private final List<Run> created = new ArrayList<>();
+
+    /**
+     * Visitor that receives the sellers in ranking order.
+     */
+    @FunctionalInterface
+    public interface SellerVisitor {
+
+        /**
+         * Visits the next seller of the ranking.
+         *
+         * @param seller The seller.
+         * @throws IOException If an I/O error occurs while handling the seller.
+         */
+        void visit(Seller seller) throws IOException;
+    }
+
+    /**
+     * Constructs an ExternalSellerSorter.
+     *
+     * @param store The store whose sellers are ranked.
+     * @param budget The maximum number of slots held in memory at once.
+     * @param tempDirectory The directory for the run files, or null for the system temporary directory.
+     */
+    public ExternalSellerSorter(SellerStore store, int budget, File tempDirectory) {
+        if (budget <= 0) {
+            throw new IllegalArgumentException("Presupuesto invlido: " + budget);
+        }
+        this.store = store;
+        this.buffer = new int[budget];
+        this.sortBuffer = new int[budget];
+        this.tempDirectory = tempDirectory;
+    }
+
+    /**
+     * Adds a seller of the store to the ranking, spilling the slots collected so far when the
+     * budget is reached. Slots must be added in increasing order for ties to keep slot order.
+     *
+     * @param slot The slot of the seller.
+     * @throws IOException If an I/O error occurs while writing a run.
+     */
+    public void add(int slot) throws IOException {
+        buffer[buffered++] = slot;
+        if (buffered == buffer.length) {
+            spill();
+        }
+    }
+
+    /**
+     * Passes every seller added so far to the visitor, best first. If nothing was spilled the
+     * slots are sorted in memory and the visitor receives views backed by the store; otherwise
+     * it receives a new Seller for each row read back from the runs.
+     *
+     * @param visitor The visitor that receives the sellers.
+     * @throws IOException If an I/O error occurs while reading the runs.
+     */
+    public void forEachSorted(SellerVisitor visitor) throws IOException {
+        if (runs.isEmpty()) {
+            ReportGenerator.sortByTotalSales(buffer, sortBuffer, 0, buffered, store);
+            for (int i = 0; i < buffered; i++) {
+                visitor.visit(store.get(buffer[i]));
+            }
+            return;
+        }
+        if (buffered > 0) {
+            spill();
+        }
+        while (runs.size() > MAX_FAN_IN) {
+            List<Run> merged = new ArrayList<>();
+            for (int from = 0; from < runs.size(); from += MAX_FAN_IN) {
+                List<Run> group = runs.subList(from, Math.min(from + MAX_FAN_IN, runs.size()));
+                if (group.size() == 1) {
+                    merged.add(group.get(0));
+                    continue;
+                }
+                Run run = createRun();
+                try (DataOutputStream out = run.openOutput()) {
+                    merge(group, seller -> {
+                        writeSeller(out, seller);
+                        run.count++;
+                    });
+                }
+                for (Run done : group) {
+                    done.delete();
+                }
+                merged.add(run);
+            }
+            runs.clear();
+            runs.addAll(merged);
+        }
+        merge(runs, visitor);
+    }
+
+    /**
+     * Returns the number of runs spilled to disk so far.
+     *
+     * @return The number of run files.
+     */
+    public int getSpilledRuns() {
+        return runs.size();
+    }
+
+    /**
+     * Deletes the run files, including those left behind by a failed merge.
+     */
+    @Override
+    public void close() {
+        for (Run run : created) {
+            run.delete();
+        }
+        created.clear();
+        runs.clear();
+        buffered = 0;
+    }
+
+    private void spill() throws IOException {
+        ReportGenerator.sortByTotalSales(buffer, sortBuffer, 0, buffered, store);
+        Run run = createRun();
+        try (DataOutputStream out = run.openOutput()) {
+            for (int i = 0; i < buffered; i++) {
+                writeSlot(out, buffer[i]);
+            }
+        }
+        run.count = buffered;
+        runs.add(run);
+        buffered = 0;
+    }
+
+    private Run createRun() throws IOException {
+        Run run = new Run(File.createTempFile("ranking", ".run", tempDirectory));
+        created.add(run);
+        return run;
+    }
+
+    /**
+     * Merges the given runs, which must be listed in the order they were written.
+     */
+    private void merge(List<Run> sources, SellerVisitor visitor) throws IOException {
+        List<RunReader> readers = new ArrayList<>(sources.size());
+        PriorityQueue<RunReader> heads = new PriorityQueue<>(Math.max(1, sources.size()), BY_HEAD);
+        try {
+            for (Run run : sources) {
+                RunReader reader = new RunReader(run, readers.size());
+                readers.add(reader);
+                if (reader.next()) {
+                    heads.add(reader);
+                }
+            }
+            while (!heads.isEmpty()) {
+                RunReader reader = heads.poll();
+                visitor.visit(reader.head);
+                if (reader.next()) {
+                    heads.add(reader);
+                }
+            }
+        } finally {
+            for (RunReader reader : readers) {
+                reader.in.close();
+            }
+        }
+    }
+
+    private void writeSlot(DataOutputStream out, int slot) throws IOException {
+        out.writeLong(store.getTotalSalesCents(slot));
+        writeString(out, store.getDocumentType(slot));
+        out.writeLong(store.getDocumentNumber(slot));
+        writeString(out, store.getFirstName(slot));
+        writeString(out, store.getLastName(slot));
+    }
+
+    private static void writeSeller(DataOutputStream out, Seller seller) throws IOException {
+        out.writeLong(seller.getTotalSalesCents());
+        writeString(out, seller.getDocumentType());
+        out.writeLong(seller.getDocumentNumber());
+        writeString(out, seller.getFirstName());
+        writeString(out, seller.getLastName());
+    }
+
+    private static Seller readSeller(DataInputStream in) throws IOException {
+        long totalSalesCents = in.readLong();
+        Seller seller = new Seller(readString(in), in.readLong(), readString(in), readString(in));
+        seller.addSale(totalSalesCents);
+        return seller;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * A sorted run spilled to a temporary file.
+     */
+    private static class Run {
+        private final File file;
+        private long count;
+
+        Run(File file) {
+            this.file = file;
+        }
+
+        DataOutputStream openOutput() throws IOException {
+            return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024));
+        }
+
+        void delete() {
+            if (!file.delete() && file.exists()) {
+                file.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Reads a run back one seller at a time.
+     */
+    private static class RunReader {
+        private final DataInputStream in;
+        private final int index;
+        private long remaining;
+        private Seller head;
+
+        RunReader(Run run, int index) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(run.file), 64 * 1024));
+            this.index = index;
+            this.remaining = run.count;
+        }
+
+        boolean next() throws IOException {
+            if (remaining == 0) {
+                head = null;
+                return false;
+            }
+            remaining--;
+            head = readSeller(in);
+            return true;
+        }
+    }
+}
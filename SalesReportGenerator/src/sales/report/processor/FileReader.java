@@ -3,22 +3,44 @@ package sales.report.processor;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.text.NumberFormat;
-import java.text.ParseException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 import sales.report.model.Product;
+import sales.report.model.ProductStore;
 import sales.report.model.Sale;
 import sales.report.model.Seller;
+import sales.report.model.SellerStore;
+import sales.util.ColumnarFormat;
 import sales.util.Constants;
+import sales.util.Decimals;
+import sales.util.InputCodecs;
+import sales.util.NameDictionary;
 
 /**
  * The FileReader class is responsible for reading data from various input files
- * and converting them into lists of Seller, Product, and Sale objects.
+ * and converting them into lists of Seller, Product, and Sale objects. Any input file may
+ * also be kept compressed, such as vendedores.txt.gz or Vendedor_&lt;document&gt;.txt.gz; it is
+ * then decoded while it is read, through the codec {@link InputCodecs} finds for its name.
  */
 public class FileReader {
-    private static final NumberFormat NUMBER_FORMAT = NumberFormat.getInstance(new Locale("es", "ES"));
+    private static final SalesFileParser SALES_PARSER = new SalesFileParser();
+    private static final ColumnarSalesReader COLUMNAR_READER = new ColumnarSalesReader();
+    /** Plain sales files are split for parallel reading into ranges no smaller than this. */
+    private static final long MIN_RANGE_BYTES = 8 * 1024 * 1024;
+    /** Parallel readers split the sales files into about this many groups per thread. */
+    private static final int FILE_GROUPS_PER_THREAD = 4;
 
     /**
      * Reads the sellers data from the input file and returns a list of Seller objects.
@@ -27,18 +49,74 @@ public class FileReader {
      * @throws IOException If an I/O error occurs while reading the file.
      */
     public static List<Seller> readSellers() throws IOException {
+        return readSellers(new ReadStats());
+    }
+
+    /**
+     * Reads the sellers data from the input file, counting its bytes, lines and skipped
+     * lines in the given statistics.
+     *
+     * @param stats The statistics to add to.
+     * @return A list of Seller objects.
+     * @throws IOException If an I/O error occurs while reading the file.
+     */
+    public static List<Seller> readSellers(ReadStats stats) throws IOException {
+        return readSellers(stats, Quarantine.counting());
+    }
+
+    /**
+     * Reads the sellers data as {@link #readSellers(ReadStats)} does, sending the lines that
+     * cannot be read to the given quarantine.
+     *
+     * @param stats The statistics to add to.
+     * @param quarantine The quarantine that receives the rejected lines.
+     * @return A list of Seller objects.
+     * @throws IOException If an I/O error occurs while reading the file.
+     */
+    public static List<Seller> readSellers(ReadStats stats, Quarantine quarantine) throws IOException {
         List<Seller> sellers = new ArrayList<>();
-        try (BufferedReader br = new BufferedReader(new java.io.FileReader(new File(Constants.DATA_DIRECTORY, Constants.SELLERS_FILE)))) {
+        readSellerRows(stats, quarantine, (documentType, documentNumber, firstName, lastName) ->
+            sellers.add(new Seller(documentType, documentNumber, firstName, lastName)));
+        return sellers;
+    }
+
+    /**
+     * Reads the sellers data from the input file into the given store.
+     *
+     * @param store The store that receives the sellers.
+     * @param stats The statistics to add to.
+     * @param quarantine The quarantine that receives the rejected lines.
+     * @throws IOException If an I/O error occurs while reading the file.
+     */
+    public static void readSellers(SellerStore store, ReadStats stats, Quarantine quarantine) throws IOException {
+        readSellerRows(stats, quarantine, store::add);
+    }
+
+    private static void readSellerRows(ReadStats stats, Quarantine quarantine, SellerRow row) throws IOException {
+        File file = InputCodecs.find(Constants.DATA_DIRECTORY, Constants.SELLERS_FILE);
+        try (BufferedReader br = openText(file)) {
+            stats.addBytes(file.length());
             String line;
+            long lineNumber = 1;
             br.readLine(); // Skip header
             while ((line = br.readLine()) != null) {
+                lineNumber++;
+                stats.addLines(1);
                 String[] parts = line.split(";");
-                if (parts.length == 4) {
-                    sellers.add(new Seller(parts[0], Long.parseLong(parts[1]), parts[2], parts[3]));
+                if (parts.length != 4) {
+                    reject(quarantine, stats, file, lineNumber, RejectReason.FIELD_COUNT, line);
+                    continue;
+                }
+                long documentNumber;
+                try {
+                    documentNumber = Long.parseLong(parts[1]);
+                } catch (NumberFormatException e) {
+                    reject(quarantine, stats, file, lineNumber, RejectReason.INVALID_NUMBER, line);
+                    continue;
                 }
+                row.accept(parts[0], documentNumber, parts[2], parts[3]);
             }
         }
-        return sellers;
     }
 
     /**
@@ -48,25 +126,96 @@ public class FileReader {
      * @throws IOException If an I/O error occurs while reading the file.
      */
     public static List<Product> readProducts() throws IOException {
+        return readProducts(new ReadStats());
+    }
+
+    /**
+     * Reads the products data from the input file, counting its bytes, lines and skipped
+     * lines in the given statistics. Product names are encoded with a single
+     * {@link NameDictionary}, so products with the same name share one String and one code.
+     *
+     * @param stats The statistics to add to.
+     * @return A list of Product objects.
+     * @throws IOException If an I/O error occurs while reading the file.
+     */
+    public static List<Product> readProducts(ReadStats stats) throws IOException {
+        return readProducts(stats, Quarantine.counting());
+    }
+
+    /**
+     * Reads the products data as {@link #readProducts(ReadStats)} does, sending the lines that
+     * cannot be read to the given quarantine.
+     *
+     * @param stats The statistics to add to.
+     * @param quarantine The quarantine that receives the rejected lines.
+     * @return A list of Product objects.
+     * @throws IOException If an I/O error occurs while reading the file.
+     */
+    public static List<Product> readProducts(ReadStats stats, Quarantine quarantine) throws IOException {
         List<Product> products = new ArrayList<>();
-        try (BufferedReader br = new BufferedReader(new java.io.FileReader(new File(Constants.DATA_DIRECTORY, Constants.PRODUCTS_FILE)))) {
+        NameDictionary names = new NameDictionary();
+        readProductRows(stats, quarantine, (id, name, priceCents) -> {
+            int nameCode = names.encode(name);
+            products.add(new Product(id, names.decode(nameCode), nameCode, priceCents));
+        });
+        return products;
+    }
+
+    /**
+     * Reads the products data from the input file into the given store.
+     *
+     * @param store The store that receives the products.
+     * @param stats The statistics to add to.
+     * @param quarantine The quarantine that receives the rejected lines.
+     * @throws IOException If an I/O error occurs while reading the file.
+     */
+    public static void readProducts(ProductStore store, ReadStats stats, Quarantine quarantine) throws IOException {
+        readProductRows(stats, quarantine, store::add);
+    }
+
+    private static void readProductRows(ReadStats stats, Quarantine quarantine, ProductRow row) throws IOException {
+        File file = InputCodecs.find(Constants.DATA_DIRECTORY, Constants.PRODUCTS_FILE);
+        try (BufferedReader br = openText(file)) {
+            stats.addBytes(file.length());
             String line;
+            long lineNumber = 1;
             br.readLine(); // Skip header
             while ((line = br.readLine()) != null) {
+                lineNumber++;
+                stats.addLines(1);
                 String[] parts = line.split(";");
-                if (parts.length == 3) {
-                    try {
-                        int id = Integer.parseInt(parts[0]);
-                        String name = parts[1];
-                        double price = NUMBER_FORMAT.parse(parts[2]).doubleValue();
-                        products.add(new Product(id, name, price));
-                    } catch (ParseException e) {
-                        System.err.println("Error parsing price for product: " + parts[1]);
-                    }
+                if (parts.length != 3) {
+                    reject(quarantine, stats, file, lineNumber, RejectReason.FIELD_COUNT, line);
+                    continue;
                 }
+                int id;
+                long priceCents;
+                try {
+                    id = Integer.parseInt(parts[0]);
+                    priceCents = Decimals.parseCents(parts[2]);
+                } catch (NumberFormatException e) {
+                    reject(quarantine, stats, file, lineNumber, RejectReason.INVALID_NUMBER, line);
+                    continue;
+                }
+                row.accept(id, parts[1], priceCents);
             }
         }
-        return products;
+    }
+
+    /**
+     * Opens a text input file in the platform encoding, decoding it first if it is compressed.
+     */
+    private static BufferedReader openText(File file) throws IOException {
+        if (InputCodecs.forFile(file.getName()) == null) {
+            return new BufferedReader(new java.io.FileReader(file));
+        }
+        return new BufferedReader(new InputStreamReader(InputCodecs.open(file)));
+    }
+
+    private static void reject(Quarantine quarantine, ReadStats stats, File file, long lineNumber,
+                               RejectReason reason, String line) {
+        stats.addRejected(1);
+        quarantine.reject(file.getName(), lineNumber, reason, line);
     }
 
     /**
@@ -77,22 +226,436 @@ public class FileReader {
      */
     public static List<Sale> readSales() throws IOException {
         List<Sale> sales = new ArrayList<>();
+        readSales((document, productId, quantity) -> sales.add(new Sale(document, productId, quantity)));
+        return sales;
+    }
+
+    /**
+     * Reads the sales data from multiple input files and passes each sale to the given
+     * handler as soon as it is parsed, without keeping the sales in memory.
+     *
+     * @param handler The handler that receives each sale.
+     * @throws IOException If an I/O error occurs while reading the files.
+     */
+    public static void readSales(SaleHandler handler) throws IOException {
+        readSales(handler, new ReadStats());
+    }
+
+    /**
+     * Reads the sales data as {@link #readSales(SaleHandler)} does, counting the bytes,
+     * lines and skipped lines of every file in the given statistics.
+     *
+     * @param handler The handler that receives each sale.
+     * @param stats The statistics to add to.
+     * @throws IOException If an I/O error occurs while reading the files.
+     */
+    public static void readSales(SaleHandler handler, ReadStats stats) throws IOException {
+        readSales(handler, stats, Quarantine.counting());
+    }
+
+    /**
+     * Reads the sales data as {@link #readSales(SaleHandler, ReadStats)} does, sending the
+     * lines that cannot be read and the sales the handler refuses to the given quarantine.
+     *
+     * @param handler The handler that receives each sale.
+     * @param stats The statistics to add to.
+     * @param quarantine The quarantine that receives the rejected lines.
+     * @throws IOException If an I/O error occurs while reading the files.
+     */
+    public static void readSales(SaleHandler handler, ReadStats stats, Quarantine quarantine) throws IOException {
+        for (File file : listSalesFiles()) {
+            readSalesFile(file, handler, stats, quarantine);
+        }
+    }
+
+    /**
+     * Reads the sales data in parallel straight into an aggregator, without building any Sale
+     * object. The files are split across a fork-join pool, and a large plain file is itself
+     * split into line-aligned ranges read by several workers, so a single file holding most
+     * of the sales does not leave the other workers idle. Each file group and each range is
+     * added to {@link PartialTotals} of its own, which are merged as the workers finish and
+     * added to the aggregator once. The totals are the same as those of
+     * {@link #readSales(SaleHandler, ReadStats, Quarantine)} with the aggregator as handler,
+     * and so are the lines sent to the quarantine.
+     *
+     * @param parallelism The number of worker threads to use.
+     * @param aggregator The aggregator that updates the sellers and products.
+     * @param stats The statistics to add to.
+     * @param quarantine The quarantine that receives the rejected lines.
+     * @throws IOException If an I/O error occurs while reading the files.
+     */
+    public static void aggregateSales(int parallelism, Aggregator aggregator, ReadStats stats,
+                                      Quarantine quarantine) throws IOException {
+        aggregateSales(listSalesFiles(), parallelism, aggregator, stats, quarantine);
+    }
+
+    /**
+     * Reads the given sales files in parallel straight into an aggregator, as
+     * {@link #aggregateSales(int, Aggregator, ReadStats, Quarantine)} does for all of them.
+     *
+     * @param files The sales files to read.
+     * @param parallelism The number of worker threads to use; 1 reads the files in turn.
+     * @param aggregator The aggregator that updates the sellers and products.
+     * @param stats The statistics to add to.
+     * @param quarantine The quarantine that receives the rejected lines.
+     * @throws IOException If an I/O error occurs while reading the files.
+     */
+    static void aggregateSales(File[] files, int parallelism, Aggregator aggregator, ReadStats stats,
+                               Quarantine quarantine) throws IOException {
+        if (parallelism <= 1) {
+            for (File file : files) {
+                readSalesFile(file, aggregator, stats, quarantine);
+            }
+            return;
+        }
+        aggregator.addPartial(readInParallel(files, parallelism, aggregator, stats, quarantine));
+    }
+
+    /**
+     * Lists the sales files in the data directory, sorted by name so that every reading
+     * mode visits them in the same order. When a seller has both a text file and a columnar
+     * file, the columnar one is used only while the text file is the one it was converted
+     * from, as {@link ColumnarSalesReader#isCurrent} tells; when a
+     * seller has a text file both plain and compressed, the newer one is used.
+     *
+     * @return The sales files, or an empty array if the directory cannot be listed.
+     */
+    static File[] listSalesFiles() {
         File dir = new File(Constants.DATA_DIRECTORY);
-        File[] salesFiles = dir.listFiles((d, name) -> name.matches("Vendedor_\\d+\\.txt"));
-        if (salesFiles != null) {
-            for (File file : salesFiles) {
-                try (BufferedReader br = new BufferedReader(new java.io.FileReader(file))) {
-                    String line;
-                    br.readLine(); // Skip header
-                    while ((line = br.readLine()) != null) {
-                        String[] parts = line.split(";");
-                        if (parts.length == 3) {
-                            sales.add(new Sale(parts[0], Integer.parseInt(parts[1]), Integer.parseInt(parts[2])));
+        File[] salesFiles = dir.listFiles((d, name) -> isSalesFileName(name));
+        if (salesFiles == null) {
+            return new File[0];
+        }
+        Map<String, File> bySeller = new TreeMap<>();
+        for (File file : salesFiles) {
+            String name = file.getName();
+            String seller = name.substring(0, name.indexOf('.'));
+            File other = bySeller.get(seller);
+            if (other == null || preferred(file, other)) {
+                bySeller.put(seller, file);
+            }
+        }
+        File[] selected = bySeller.values().toArray(new File[0]);
+        Arrays.sort(selected);
+        return selected;
+    }
+
+    /**
+     * Computes a fingerprint of the input in the data directory: the name, size and
+     * modification time of the sellers and products files and of every sales file. Runs that
+     * see the same fingerprint read the same input, so partial aggregates computed by
+     * different shards can be checked to come from one set of files.
+     *
+     * @return The first 64 bits of a SHA-256 digest of the input's file listing.
+     */
+    static long inputFingerprint() {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+        List<File> files = new ArrayList<>();
+        files.add(InputCodecs.find(Constants.DATA_DIRECTORY, Constants.SELLERS_FILE));
+        files.add(InputCodecs.find(Constants.DATA_DIRECTORY, Constants.PRODUCTS_FILE));
+        files.addAll(Arrays.asList(listSalesFiles()));
+        ByteBuffer entry = ByteBuffer.allocate(16);
+        for (File file : files) {
+            digest.update(file.getName().getBytes(StandardCharsets.UTF_8));
+            entry.clear();
+            entry.putLong(file.length()).putLong(file.lastModified());
+            digest.update(entry.array());
+        }
+        return ByteBuffer.wrap(digest.digest()).getLong();
+    }
+
+    /**
+     * Computes a fingerprint of the content of the sellers and products files. Sales checked
+     * against catalogs with the same fingerprint were checked against the same sellers and
+     * products, whatever the modification times of the files say.
+     *
+     * @return The CRC-32 checksum of the sellers file in the high 32 bits and that of the
+     *         products file in the low 32 bits.
+     * @throws IOException If either file cannot be read.
+     */
+    static long catalogFingerprint() throws IOException {
+        long sellers = SalesSnapshot.checksum(InputCodecs.find(Constants.DATA_DIRECTORY, Constants.SELLERS_FILE));
+        long products = SalesSnapshot.checksum(InputCodecs.find(Constants.DATA_DIRECTORY, Constants.PRODUCTS_FILE));
+        return sellers << 32 | products;
+    }
+
+    /**
+     * Lists the sales files that belong to one shard of a sharded run. Files are assigned
+     * to shards by a hash of the seller document number in their name, so every process
+     * that lists the same directory with the same shard count agrees on the assignment.
+     *
+     * @param shard The index of the shard, from 0 to {@code shards - 1}.
+     * @param shards The number of shards.
+     * @return The shard's sales files, sorted by name.
+     */
+    static File[] listSalesFiles(int shard, int shards) {
+        List<File> selected = new ArrayList<>();
+        for (File file : listSalesFiles()) {
+            if (shardOf(file.getName(), shards) == shard) {
+                selected.add(file);
+            }
+        }
+        return selected.toArray(new File[0]);
+    }
+
+    private static int shardOf(String fileName, int shards) {
+        String document = fileName.substring(fileName.indexOf('_') + 1, fileName.indexOf('.'));
+        long h;
+        try {
+            h = Long.parseLong(document);
+        } catch (NumberFormatException e) {
+            h = document.hashCode();
+        }
+        // Mix the bits so that consecutive document numbers spread over all shards
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return (int) Math.floorMod(h ^ (h >>> 33), (long) shards);
+    }
+
+    /**
+     * Tells whether a file name is that of a text or columnar sales file.
+     *
+     * @param name The file name, without directory.
+     * @return true for names of the form Vendedor_&lt;document&gt;.txt or .col, or .txt
+     *         followed by the extension of a codec.
+     */
+    static boolean isSalesFileName(String name) {
+        String plain = InputCodecs.stripExtension(name);
+        return plain.equals(name)
+                ? name.matches("Vendedor_\\d+\\.(txt|col)")
+                : plain.matches("Vendedor_\\d+\\.txt");
+    }
+
+    /**
+     * Decides which of two of a seller's sales files to read.
+     *
+     * @param file One of the seller's sales files.
+     * @param other The seller's other sales file.
+     * @return true if {@code file} should be read instead of {@code other}.
+     */
+    private static boolean preferred(File file, File other) {
+        if (!isColumnar(file) && !isColumnar(other)) {
+            // Plain and compressed text: the newer one, or the plain one if neither is newer
+            return file.lastModified() != other.lastModified()
+                    ? file.lastModified() > other.lastModified()
+                    : InputCodecs.forFile(file.getName()) == null;
+        }
+        File columnar = isColumnar(file) ? file : other;
+        File text = columnar == file ? other : file;
+        return (file == columnar) == ColumnarSalesReader.isCurrent(columnar, text);
+    }
+
+    private static boolean isColumnar(File file) {
+        return file.getName().endsWith(ColumnarFormat.EXTENSION);
+    }
+
+    /**
+     * Reads a single sales file and passes each of its sales to the given handler.
+     *
+     * @param file The sales file to read.
+     * @param handler The handler that receives the sales.
+     * @throws IOException If an I/O error occurs while reading the file.
+     */
+    static void readSalesFile(File file, SaleHandler handler) throws IOException {
+        readSalesFile(file, handler, new ReadStats());
+    }
+
+    /**
+     * Reads a single sales file, counting its bytes, lines and skipped lines.
+     *
+     * @param file The sales file to read.
+     * @param handler The handler that receives the sales.
+     * @param stats The statistics to add to.
+     * @throws IOException If an I/O error occurs while reading the file.
+     */
+    static void readSalesFile(File file, SaleHandler handler, ReadStats stats) throws IOException {
+        readSalesFile(file, handler, stats, Quarantine.counting());
+    }
+
+    /**
+     * Reads a single sales file, counting its bytes, lines and skipped lines and sending the
+     * skipped lines to the given quarantine.
+     *
+     * @param file The sales file to read.
+     * @param handler The handler that receives the sales.
+     * @param stats The statistics to add to.
+     * @param quarantine The quarantine that receives the rejected lines.
+     * @throws IOException If an I/O error occurs while reading the file.
+     */
+    static void readSalesFile(File file, SaleHandler handler, ReadStats stats, Quarantine quarantine) throws IOException {
+        if (isColumnar(file)) {
+            COLUMNAR_READER.parse(file.toPath(), handler, stats, quarantine);
+        } else {
+            SALES_PARSER.parse(file.toPath(), handler, stats, quarantine);
+        }
+    }
+
+    /**
+     * Receives the fields of each valid line of the sellers file.
+     */
+    @FunctionalInterface
+    private interface SellerRow {
+        void accept(String documentType, long documentNumber, String firstName, String lastName);
+    }
+
+    /**
+     * Receives the fields of each valid line of the products file.
+     */
+    @FunctionalInterface
+    private interface ProductRow {
+        void accept(int id, String name, long priceCents);
+    }
+
+    /**
+     * Reads the sales files on a new fork-join pool into partial totals of the aggregator.
+     */
+    private static PartialTotals readInParallel(File[] files, int parallelism, Aggregator aggregator,
+                                                ReadStats stats, Quarantine quarantine) throws IOException {
+        // A few groups of files per thread, so each partial is created and merged only a few times
+        int threshold = Math.max(1, files.length / (parallelism * FILE_GROUPS_PER_THREAD));
+        ForkJoinPool pool = PipelineMetrics.newPool(parallelism);
+        try {
+            return pool.invoke(new ReadSalesTask(files, 0, files.length, threshold, aggregator, stats, quarantine));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Fork-join task that reads a range of sales files. Ranges are halved until they hold no
+     * more files than the threshold; the partials are then merged left to right. Each leaf
+     * counts into its own statistics and adds them to the shared ones under its lock.
+     */
+    private static class ReadSalesTask extends RecursiveTask<PartialTotals> {
+        private static final long serialVersionUID = 1L;
+
+        private final File[] files;
+        private final int from;
+        private final int to;
+        private final int threshold;
+        private final Aggregator aggregator;
+        private final ReadStats stats;
+        private final Quarantine quarantine;
+
+        ReadSalesTask(File[] files, int from, int to, int threshold, Aggregator aggregator,
+                      ReadStats stats, Quarantine quarantine) {
+            this.files = files;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+            this.aggregator = aggregator;
+            this.stats = stats;
+            this.quarantine = quarantine;
+        }
+
+        @Override
+        protected PartialTotals compute() {
+            if (to - from <= threshold) {
+                PartialTotals partial = aggregator.newPartial();
+                ReadStats local = new ReadStats();
+                int parallelism = getPool().getParallelism();
+                for (int i = from; i < to; i++) {
+                    try {
+                        int ranges = rangesOf(files[i], parallelism);
+                        if (ranges > 1) {
+                            partial.merge(readSalesFileInRanges(files[i], ranges, aggregator, local, quarantine));
+                        } else {
+                            readSalesFile(files[i], partial, local, quarantine);
                         }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
                     }
                 }
+                synchronized (stats) {
+                    stats.add(local);
+                }
+                return partial;
             }
+            int mid = (from + to) >>> 1;
+            ReadSalesTask left = new ReadSalesTask(files, from, mid, threshold, aggregator, stats, quarantine);
+            ReadSalesTask right = new ReadSalesTask(files, mid, to, threshold, aggregator, stats, quarantine);
+            right.fork();
+            PartialTotals partial = left.compute();
+            return partial.merge(right.join());
+        }
+    }
+
+    /**
+     * Returns the number of ranges to split a sales file into for parallel reading, or 1 if
+     * it should be read whole: columnar and compressed files, and files too small to be
+     * worth splitting.
+     */
+    private static int rangesOf(File file, int parallelism) {
+        if (parallelism <= 1 || isColumnar(file) || InputCodecs.forFile(file.getName()) != null) {
+            return 1;
+        }
+        return (int) Math.min(parallelism, file.length() / MIN_RANGE_BYTES);
+    }
+
+    /**
+     * Reads a plain sales file as line-aligned ranges parsed by tasks forked into the current
+     * pool. Each range is read into a partial of its own and the partials are merged; the
+     * rejected lines are numbered and quarantined in file order, as if the file had been read
+     * in one go.
+     */
+    private static PartialTotals readSalesFileInRanges(File file, int ranges, Aggregator aggregator,
+                                                       ReadStats stats, Quarantine quarantine) throws IOException {
+        long[] offsets = SALES_PARSER.split(file.toPath(), ranges);
+        Quarantine.Source source = quarantine.source(file.getName());
+        List<ReadRangeTask> tasks = new ArrayList<>();
+        for (int r = 0; r + 1 < offsets.length; r++) {
+            tasks.add(new ReadRangeTask(file, offsets[r], offsets[r + 1], aggregator.newPartial(), source.part()));
+        }
+        ForkJoinTask.invokeAll(tasks);
+        PartialTotals partial = aggregator.newPartial();
+        long linesBefore = 0;
+        for (ReadRangeTask task : tasks) {
+            partial.merge(task.join());
+            stats.add(task.stats);
+            task.source.release(linesBefore);
+            linesBefore += task.source.getLine();
+        }
+        return partial;
+    }
+
+    /**
+     * Fork-join task that reads one range of a sales file into its own partial, statistics
+     * and quarantine part.
+     */
+    private static class ReadRangeTask extends RecursiveTask<PartialTotals> {
+        private static final long serialVersionUID = 1L;
+
+        private final File file;
+        private final long start;
+        private final long end;
+        private final PartialTotals partial;
+        private final Quarantine.Source source;
+        private final ReadStats stats = new ReadStats();
+
+        ReadRangeTask(File file, long start, long end, PartialTotals partial, Quarantine.Source source) {
+            this.file = file;
+            this.start = start;
+            this.end = end;
+            this.partial = partial;
+            this.source = source;
+        }
+
+        @Override
+        protected PartialTotals compute() {
+            try {
+                SALES_PARSER.parseRange(file.toPath(), start, end, partial, stats, source);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return partial;
         }
-        return sales;
     }
-}
\ No newline at end of file
+}
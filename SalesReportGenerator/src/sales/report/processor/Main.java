@@ -1,86 +1,433 @@
 package sales.report.processor;
 
+import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import sales.report.model.Product;
-import sales.report.model.Sale;
+import sales.report.model.ProductStore;
 import sales.report.model.Seller;
+import sales.report.model.SellerStore;
 import sales.util.Constants;
+import sales.util.InputCodecs;
 
 /**
  * The Main class is responsible for processing sales data, generating reports,
  * and orchestrating the reading and processing of sellers, products, and sales.
  */
 public class Main {
+    private static final int INITIAL_STORE_CAPACITY = 1024;
 
     /**
      * Main method that reads the sellers, products, and sales data, processes the sales,
      * and generates the corresponding reports.
      *
-     * @param args Command-line arguments (not used).
+     * <p>Lines that cannot be read, and sales of unknown sellers or products, are skipped and
+     * written to 'reportes/cuarentena.csv' with their file, line and reason, or to
+     * 'reportes/cuarentena_I_de_N.csv' by shard I of N. The time, I/O and allocation of each
+     * phase are written to 'reportes/metricas.json' and published over JMX while the run lasts.
+     * A total that overflows ends the run with an error message.</p>
+     *
+     * @param args Command-line options, as listed in {@link ProcessorOptions}.
      */
     public static void main(String[] args) {
+        ProcessorOptions options;
         try {
-            List<Seller> sellers = FileReader.readSellers();
-            List<Product> products = FileReader.readProducts();
-            List<Sale> sales = FileReader.readSales();
+            options = ProcessorOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return;
+        }
+        // Decompression threads end with their file, so they report their allocation themselves
+        InputCodecs.setThreadFactory(PipelineMetrics::newThread);
+
+        if (options.isServe()) {
+            serve(options);
+            return;
+        }
 
-            processSales(sellers, products, sales);
+        if (options.isWatch()) {
+            try {
+                new SalesWatcher(options).run();
+            } catch (IOException e) {
+                System.err.println("Error al vigilar los archivos: " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return;
+        }
+
+        PipelineMetrics metrics = new PipelineMetrics();
+        metrics.register();
+        // Shards may run side by side, so each one keeps its own metrics and quarantine
+        String suffix = options.isShard() ? "_" + options.getShard() + "_de_" + options.getShards() : "";
+        File quarantineFile = new File(Constants.REPORTS_DIRECTORY, options.isShard()
+                ? "cuarentena" + suffix + ".csv" : Constants.QUARANTINE_FILE);
+        try (Quarantine quarantine = new Quarantine(quarantineFile)) {
+            // Taken before the catalogs are read, so catalogs replaced meanwhile make the next run parse every file
+            long catalogFingerprint = options.isIncremental() ? FileReader.catalogFingerprint() : 0;
+            // Off-heap, sellers and products live in column stores and the lists are views over them
+            SellerStore sellerStore = null;
+            ProductStore productStore = null;
+            List<Seller> sellers;
+            try (PipelineMetrics.Phase phase = metrics.start("read_sellers")) {
+                if (options.isOffHeap()) {
+                    sellerStore = new SellerStore(INITIAL_STORE_CAPACITY);
+                    FileReader.readSellers(sellerStore, phase.getStats(), quarantine);
+                    sellers = sellerStore.asList();
+                } else {
+                    sellers = FileReader.readSellers(phase.getStats(), quarantine);
+                }
+            }
+            List<Product> products;
+            try (PipelineMetrics.Phase phase = metrics.start("read_products")) {
+                if (options.isOffHeap()) {
+                    productStore = new ProductStore(INITIAL_STORE_CAPACITY);
+                    FileReader.readProducts(productStore, phase.getStats(), quarantine);
+                    products = productStore.asList();
+                } else {
+                    products = FileReader.readProducts(phase.getStats(), quarantine);
+                }
+            }
+            Aggregator aggregator;
+            CatalogIndex catalog = null;
+            PipelineMetrics.Phase indexing = metrics.start("build_indexes");
+            try {
+                aggregator = options.isOffHeap()
+                        ? new StoreAggregator(sellerStore, productStore)
+                        : new SalesAggregator(sellers, products);
+                if (options.hasFilter()) {
+                    catalog = new CatalogIndex(sellers, products);
+                }
+            } finally {
+                indexing.close();
+            }
+            // The cube is tallied in the same pass that updates the totals
+            TallyingAggregator tallying = null;
+            if (options.isCube()) {
+                tallying = new TallyingAggregator(aggregator);
+                aggregator = tallying;
+            }
 
-            ReportGenerator.generateSellersReport(sellers, Constants.SELLERS_REPORT);
-            ReportGenerator.generateProductsReport(products, Constants.PRODUCTS_REPORT);
+            if (options.isShard()) {
+                processShard(aggregator, sellers, products, options.getShard(), options.getShards(),
+                        options.getThreads(), metrics, quarantine);
+                metrics.writeJson(new File(Constants.REPORTS_DIRECTORY, "metricas" + suffix + ".json"));
+                printRejections(quarantine, quarantineFile);
+                return;
+            } else if (options.getMergeShards() > 0) {
+                mergePartials(sellers, products, options.getMergeShards(), metrics, quarantine);
+            } else if (options.isIncremental()) {
+                processSalesIncrementally(aggregator, catalogFingerprint, options.getThreads(), metrics, quarantine);
+            } else if (options.getThreads() > 1) {
+                // Each worker adds its files, or its ranges of a large file, to totals of its own
+                try (PipelineMetrics.Phase phase = metrics.start("read_and_process_sales")) {
+                    FileReader.aggregateSales(options.getThreads(), aggregator, phase.getStats(), quarantine);
+                }
+            } else if (options.getPartialReportMillis() > 0) {
+                // Rank the totals so far from time to time, between two sales of the reading thread
+                try (PipelineMetrics.Phase phase = metrics.start("read_and_process_sales");
+                     PartialReportWriter partial = new PartialReportWriter(aggregator, sellers, sellerStore,
+                             products, catalog, options)) {
+                    FileReader.readSales(partial, phase.getStats(), quarantine);
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+            } else {
+                // Stream each sale straight into the totals instead of loading them all first
+                try (PipelineMetrics.Phase phase = metrics.start("read_and_process_sales")) {
+                    FileReader.readSales(aggregator, phase.getStats(), quarantine);
+                }
+            }
 
+            writeReports(sellers, sellerStore, products, catalog, options, metrics, Constants.SELLERS_REPORT, Constants.PRODUCTS_REPORT);
+            if (tallying != null) {
+                writeCubeReports(tallying.getTally(), sellers, products, metrics,
+                        Constants.SELLER_PRODUCT_REPORT, Constants.SELLER_PRODUCT_NAME_REPORT);
+            }
+            metrics.writeJson(new File(Constants.REPORTS_DIRECTORY, Constants.METRICS_FILE));
+            printRejections(quarantine, quarantineFile);
             System.out.println("Proceso completado. Se han generado los reportes y estn almacenados en la carpeta 'reportes'.");
         } catch (IOException e) {
             System.err.println("Error al procesar los archivos: " + e.getMessage());
+        } catch (ArithmeticException e) {
+            // Thrown by Money and the exact additions when a total no longer fits in a long
+            System.err.println("Error: un total de ventas supera el valor mximo representable ("
+                    + e.getMessage() + "); los reportes de la carpeta 'reportes' pueden estar incompletos.");
+        }
+    }
+
+    /**
+     * Keeps the aggregates up to date as watch mode does and answers queries over them, both on
+     * a local HTTP port and from the standard input, one query per line, until 'salir' is read.
+     *
+     * @param options The options that select the port and the watch settings.
+     */
+    private static void serve(ProcessorOptions options) {
+        SalesQueryService queries = new SalesQueryService();
+        try (QueryServer server = new QueryServer(queries, options.getServePort())) {
+            System.out.println("Consultas en http://localhost:" + server.getPort()
+                    + "/vendedores?tipo=CC&top=10 y /productos?min=100, o escritas aqu ('salir' para terminar).");
+            Thread watcherThread = Thread.currentThread();
+            Thread console = new Thread(() -> {
+                answerQueries(queries);
+                watcherThread.interrupt();
+            }, "consultas-consola");
+            console.setDaemon(true);
+            console.start();
+            new SalesWatcher(options, queries).run();
+        } catch (IOException e) {
+            System.err.println("Error al servir las consultas: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Answers the queries read from the standard input until 'salir' is read. When the input
+     * ends without it, queries keep being served over HTTP.
+     *
+     * @param queries The service that answers the queries.
+     */
+    private static void answerQueries(SalesQueryService queries) {
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+        try {
+            queries.awaitPublished();
+            String line;
+            while ((line = in.readLine()) != null) {
+                String query = line.trim();
+                if (query.equals("salir")) {
+                    return;
+                }
+                if (query.isEmpty()) {
+                    continue;
+                }
+                long start = System.nanoTime();
+                try {
+                    String result = queries.query(query);
+                    System.out.print(result);
+                    System.out.printf("(%.3f ms)%n", (System.nanoTime() - start) / 1e6);
+                } catch (IllegalArgumentException | IllegalStateException e) {
+                    System.err.println(e.getMessage());
+                }
+            }
+            // Without a console, keep serving HTTP until the process is stopped
+            Thread.currentThread().join();
+        } catch (IOException e) {
+            System.err.println("Error al leer las consultas: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Prints how many input lines were rejected for each reason, if any were.
+     *
+     * @param quarantine The quarantine that counted the rejected lines.
+     * @param quarantineFile The file the rejected lines were written to.
+     */
+    private static void printRejections(Quarantine quarantine, File quarantineFile) {
+        if (quarantine.getTotal() == 0) {
+            return;
+        }
+        StringBuilder message = new StringBuilder("Lneas rechazadas: ").append(quarantine.getTotal()).append(" (");
+        String separator = "";
+        for (RejectReason reason : RejectReason.values()) {
+            long count = quarantine.getCount(reason);
+            if (count > 0) {
+                message.append(separator).append(reason.getDescription()).append(": ").append(count);
+                separator = ", ";
+            }
+        }
+        System.out.println(message.append("). Detalle en '").append(quarantineFile.getPath()).append("'."));
+    }
+
+    /**
+     * Writes the sellers and products reports as selected by the options. When the sellers are
+     * views over a store, the full sellers report is ranked on the store's columns. When the
+     * options filter the reports, the rows are selected with the catalog's bitmap indexes and
+     * ranked in memory.
+     *
+     * @param sellers A list of sellers with their totals.
+     * @param sellerStore The store the sellers are views over, or null if they are plain objects.
+     * @param products A list of products with their sold quantities.
+     * @param catalog The bitmap indexes over the sellers and products, or null if the options
+     *                do not filter the reports.
+     * @param options The options that select the size, sorting and filters of the reports.
+     * @param metrics The metrics that record the writing phases.
+     * @param sellersReport The file name of the sellers report.
+     * @param productsReport The file name of the products report.
+     * @throws IOException If an I/O error occurs while writing the reports.
+     */
+    static void writeReports(List<Seller> sellers, SellerStore sellerStore, List<Product> products, CatalogIndex catalog,
+                             ProcessorOptions options, PipelineMetrics metrics, String sellersReport,
+                             String productsReport) throws IOException {
+        try (PipelineMetrics.Phase phase = metrics.start("write_sellers_report")) {
+            if (catalog != null) {
+                BitSet selected = catalog.selectSellers(options.getDocumentTypes());
+                if (options.getTop() > 0) {
+                    ReportGenerator.generateSellersReport(sellers, selected, sellersReport, options.getTop());
+                } else {
+                    ReportGenerator.generateSellersReport(sellers, selected, sellersReport);
+                }
+            } else if (options.getTop() > 0) {
+                ReportGenerator.generateSellersReport(sellers, sellersReport, options.getTop());
+            } else if (options.getSortBudget() > 0) {
+                ReportGenerator.generateSellersReportExternally(sellerStore, sellersReport, options.getSortBudget());
+            } else if (sellerStore != null) {
+                ReportGenerator.generateSellersReport(sellerStore, sellersReport);
+            } else {
+                ReportGenerator.generateSellersReport(sellers, sellersReport);
+            }
+            phase.getStats().addBytes(new File(Constants.REPORTS_DIRECTORY, sellersReport).length());
+        }
+        try (PipelineMetrics.Phase phase = metrics.start("write_products_report")) {
+            if (catalog != null) {
+                BitSet selected = catalog.selectProducts(options.getProductNames());
+                if (options.getTop() > 0) {
+                    ReportGenerator.generateProductsReport(products, selected, productsReport, options.getTop());
+                } else {
+                    ReportGenerator.generateProductsReport(products, selected, productsReport);
+                }
+            } else if (options.getTop() > 0) {
+                ReportGenerator.generateProductsReport(products, productsReport, options.getTop());
+            } else {
+                ReportGenerator.generateProductsReport(products, productsReport);
+            }
+            phase.getStats().addBytes(new File(Constants.REPORTS_DIRECTORY, productsReport).length());
         }
     }
 
     /**
-     * Processes the sales data by associating each sale with the corresponding seller and product,
-     * updating the seller's total sales and the product's sold quantity.
+     * Builds the seller by product cube of a tally and writes the seller by product and
+     * seller by product name reports from it.
      *
+     * @param tally The quantities sold by each seller of each product.
      * @param sellers A list of sellers.
      * @param products A list of products.
-     * @param sales A list of sales transactions.
+     * @param metrics The metrics that record the cube phases.
+     * @param productReport The file name of the seller by product report.
+     * @param productNameReport The file name of the seller by product name report.
+     * @throws IOException If an I/O error occurs while writing the reports.
      */
-    private static void processSales(List<Seller> sellers, List<Product> products, List<Sale> sales) {
-        for (Sale sale : sales) {
-            Seller seller = findSeller(sellers, sale.getSellerDocumentNumber());
-            Product product = findProduct(products, sale.getProductId());
-            if (seller != null && product != null) {
-                double saleAmount = product.getPrice() * sale.getQuantity();
-                seller.addSale(saleAmount);
-                product.incrementSoldQuantity(sale.getQuantity());
-            }
+    static void writeCubeReports(SalesTally tally, List<Seller> sellers, List<Product> products, PipelineMetrics metrics,
+                                 String productReport, String productNameReport) throws IOException {
+        SalesCube cube;
+        PipelineMetrics.Phase building = metrics.start("build_cube");
+        try {
+            cube = SalesCube.of(tally, sellers, products);
+        } finally {
+            building.close();
+        }
+        try (PipelineMetrics.Phase phase = metrics.start("write_cube_reports")) {
+            ReportGenerator.generateSellerProductReport(cube, products, productReport);
+            ReportGenerator.generateSellerProductNameReport(cube, products, productNameReport);
+            phase.getStats().addBytes(new File(Constants.REPORTS_DIRECTORY, productReport).length()
+                    + new File(Constants.REPORTS_DIRECTORY, productNameReport).length());
         }
     }
 
     /**
-     * Finds a seller by their document number from a list of sellers.
+     * Processes the sales files of one shard and writes the resulting partial aggregate
+     * to the reports directory, with the lines rejected from the shard's sales files.
      *
+     * @param aggregator The aggregator that updates the sellers and products.
      * @param sellers A list of sellers.
-     * @param documentNumber The document number of the seller.
-     * @return The Seller object if found, otherwise null.
+     * @param products A list of products.
+     * @param shard The index of the shard.
+     * @param shards The number of shards.
+     * @param parallelism The number of worker threads that read the shard's sales files.
+     * @param metrics The metrics that record the reading and processing phases.
+     * @param quarantine The quarantine that receives the rejected lines.
+     * @throws IOException If an I/O error occurs while reading the data or writing the partial.
      */
-    private static Seller findSeller(List<Seller> sellers, String documentNumber) {
-        return sellers.stream()
-                .filter(s -> String.valueOf(s.getDocumentNumber()).equals(documentNumber))
-                .findFirst()
-                .orElse(null);
+    private static void processShard(Aggregator aggregator, List<Seller> sellers, List<Product> products,
+                                     int shard, int shards, int parallelism, PipelineMetrics metrics,
+                                     Quarantine quarantine) throws IOException {
+        // Kept apart from the catalogs' rejections, which the merge finds again itself
+        Quarantine salesQuarantine = Quarantine.recording();
+        try (PipelineMetrics.Phase phase = metrics.start("read_and_process_sales")) {
+            FileReader.aggregateSales(FileReader.listSalesFiles(shard, shards), parallelism, aggregator,
+                    phase.getStats(), salesQuarantine);
+        }
+        List<Quarantine.Rejection> rejections = salesQuarantine.getRejections();
+        quarantine.replay(rejections);
+        File partialFile = PartialAggregate.fileFor(shard, shards);
+        try (PipelineMetrics.Phase phase = metrics.start("write_partial")) {
+            PartialAggregate.of(shard, shards, FileReader.inputFingerprint(), sellers, products, rejections)
+                    .write(partialFile);
+            phase.getStats().addBytes(partialFile.length());
+        }
+        System.out.println("Parcial " + shard + "/" + shards + " almacenado en " + partialFile + ".");
     }
 
     /**
-     * Finds a product by its ID from a list of products.
+     * Adds up the partial aggregates written by every shard of a sharded run, and quarantines
+     * the lines the shards rejected from their sales files.
      *
+     * @param sellers A list of sellers.
      * @param products A list of products.
-     * @param id The product ID.
-     * @return The Product object if found, otherwise null.
+     * @param shards The number of shards.
+     * @param metrics The metrics that record the merge phase.
+     * @param quarantine The quarantine that receives the shards' rejected lines.
+     * @throws IOException If a partial is missing or cannot be read.
+     */
+    private static void mergePartials(List<Seller> sellers, List<Product> products, int shards,
+                                      PipelineMetrics metrics, Quarantine quarantine) throws IOException {
+        try (PipelineMetrics.Phase phase = metrics.start("merge_partials")) {
+            SellerIndex sellerIndex = new SellerIndex(sellers);
+            ProductIndex productIndex = new ProductIndex(products);
+            // Read every partial before applying any, so a missing shard leaves the totals untouched
+            List<PartialAggregate> partials = new ArrayList<>(shards);
+            long fingerprint = FileReader.inputFingerprint();
+            for (int shard = 0; shard < shards; shard++) {
+                File partialFile = PartialAggregate.fileFor(shard, shards);
+                if (!partialFile.exists()) {
+                    throw new IOException("Falta el parcial " + shard + "/" + shards + " (" + partialFile + ")");
+                }
+                partials.add(PartialAggregate.read(partialFile, shard, shards, fingerprint));
+                phase.getStats().addBytes(partialFile.length());
+            }
+            for (PartialAggregate partial : partials) {
+                partial.applyTo(sellerIndex, productIndex);
+                quarantine.replay(partial.getRejections());
+            }
+        }
+    }
+
+    /**
+     * Processes the sales data using the snapshot saved by the previous run: only new or
+     * changed sales files are parsed, and the aggregates of removed files are discarded.
+     * Sales the aggregator refuses are quarantined with the lines of their file, so the snapshot
+     * replays them on later runs as long as the sellers and products files stay the same.
+     *
+     * @param aggregator The aggregator that updates the sellers and products.
+     * @param catalogFingerprint The fingerprint of the sellers and products the aggregator holds.
+     * @param parallelism The number of worker threads that parse the changed files.
+     * @param metrics The metrics that record the reading and processing phases.
+     * @param quarantine The quarantine that receives the rejected lines of the parsed files.
+     * @throws IOException If an I/O error occurs while reading or saving the data.
      */
-    private static Product findProduct(List<Product> products, int id) {
-        return products.stream()
-                .filter(p -> p.getId() == id)
-                .findFirst()
-                .orElse(null);
+    private static void processSalesIncrementally(Aggregator aggregator, long catalogFingerprint, int parallelism,
+                                                  PipelineMetrics metrics, Quarantine quarantine) throws IOException {
+        File snapshotFile = new File(Constants.REPORTS_DIRECTORY, Constants.SALES_SNAPSHOT);
+        SalesSnapshot snapshot;
+        try (PipelineMetrics.Phase phase = metrics.start("read_sales")) {
+            snapshot = SalesSnapshot.load(snapshotFile);
+            snapshot.update(FileReader.listSalesFiles(), phase.getStats(), quarantine, parallelism,
+                    aggregator, catalogFingerprint);
+        }
+        try (PipelineMetrics.Phase phase = metrics.start("process_sales")) {
+            aggregator.apply(snapshot.getTotal());
+            snapshot.save(snapshotFile);
+            phase.getStats().addBytes(snapshotFile.length());
+        }
+
+        System.out.println("Archivos de ventas: " + snapshot.getParsedFiles() + " procesados, "
+                + snapshot.getReusedFiles() + " sin cambios, " + snapshot.getRemovedFiles() + " eliminados.");
     }
 }
@@ -0,0 +1,240 @@
+package sales.report.processor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import sales.report.model.Product;
+import sales.report.model.Seller;
+import sales.util.Constants;
+
+/**
+ * The PartialAggregate class holds the totals computed by one shard of a sharded run: the
+ * sales total of every seller and the sold quantity of every product found in the shard's
+ * sales files. Totals from different shards are combined by adding them, so the shards can
+ * be merged in any order into the same reports a single run would produce.
+ *
+ * <p>A partial file starts with the magic number "SRP1", the format version, the shard
+ * index, the shard count and the fingerprint of the input the shard read, followed by the (document number, cents) pairs of the sellers
+ * and the (product ID, quantity) pairs of the products with non-zero totals, and then the lines
+ * the shard rejected from its sales files, so the merge reports them with its own. The
+ * catalogs are read by every shard and by the merge, so their rejections are not stored. The merge only
+ * accepts partials whose fingerprint matches the input it sees, so partials left by an
+ * earlier run or computed from other files are never combined.</p>
+ */
+public class PartialAggregate {
+    private static final int MAGIC = 0x53525031; // "SRP1"
+    private static final int VERSION = 3;
+
+    private final int shard;
+    private final int shards;
+    private final long fingerprint;
+    private final long[] documentNumbers;
+    private final long[] salesCents;
+    private final int[] productIds;
+    private final long[] quantities;
+    private final List<Quarantine.Rejection> rejections;
+
+    private PartialAggregate(int shard, int shards, long fingerprint, long[] documentNumbers, long[] salesCents,
+                             int[] productIds, long[] quantities, List<Quarantine.Rejection> rejections) {
+        this.shard = shard;
+        this.shards = shards;
+        this.fingerprint = fingerprint;
+        this.documentNumbers = documentNumbers;
+        this.salesCents = salesCents;
+        this.productIds = productIds;
+        this.quantities = quantities;
+        this.rejections = rejections;
+    }
+
+    /**
+     * Captures the totals of the given sellers and products.
+     *
+     * @param shard The index of the shard, from 0 to {@code shards - 1}.
+     * @param shards The number of shards.
+     * @param fingerprint The fingerprint of the input the shard read.
+     * @param sellers The sellers, with the totals of the shard's sales.
+     * @param products The products, with the quantities of the shard's sales.
+     * @param rejections The lines rejected from the shard's sales files.
+     * @return The partial aggregate.
+     */
+    static PartialAggregate of(int shard, int shards, long fingerprint, List<Seller> sellers,
+                               List<Product> products, List<Quarantine.Rejection> rejections) {
+        int sellerCount = 0;
+        for (Seller seller : sellers) {
+            if (seller.getTotalSalesCents() != 0) {
+                sellerCount++;
+            }
+        }
+        long[] documentNumbers = new long[sellerCount];
+        long[] salesCents = new long[sellerCount];
+        int i = 0;
+        for (Seller seller : sellers) {
+            if (seller.getTotalSalesCents() != 0) {
+                documentNumbers[i] = seller.getDocumentNumber();
+                salesCents[i++] = seller.getTotalSalesCents();
+            }
+        }
+
+        int productCount = 0;
+        for (Product product : products) {
+            if (product.getSoldQuantity() != 0) {
+                productCount++;
+            }
+        }
+        int[] productIds = new int[productCount];
+        long[] quantities = new long[productCount];
+        i = 0;
+        for (Product product : products) {
+            if (product.getSoldQuantity() != 0) {
+                productIds[i] = product.getId();
+                quantities[i++] = product.getSoldQuantity();
+            }
+        }
+        return new PartialAggregate(shard, shards, fingerprint, documentNumbers, salesCents, productIds, quantities,
+                rejections);
+    }
+
+    /**
+     * Returns the name of the partial file written by a shard.
+     *
+     * @param shard The index of the shard.
+     * @param shards The number of shards.
+     * @return The file in the reports directory.
+     */
+    public static File fileFor(int shard, int shards) {
+        return new File(Constants.REPORTS_DIRECTORY, Constants.PARTIAL_PREFIX + shard + "_de_" + shards + ".bin");
+    }
+
+    /**
+     * Reads a partial file and checks that it belongs to the expected shard and was computed
+     * from the expected input.
+     *
+     * @param file The partial file.
+     * @param shard The expected shard index.
+     * @param shards The expected shard count.
+     * @param fingerprint The fingerprint of the input the merge sees.
+     * @return The partial aggregate.
+     * @throws IOException If an I/O error occurs or the file is not the expected partial.
+     */
+    public static PartialAggregate read(File file, int shard, int shards, long fingerprint) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Archivo parcial invlido: " + file);
+            }
+            if (in.readInt() != shard || in.readInt() != shards) {
+                throw new IOException("El archivo " + file + " no es el parcial " + shard + "/" + shards);
+            }
+            if (in.readLong() != fingerprint) {
+                throw new IOException("El parcial " + file + " se calcul con otros archivos de entrada;"
+                        + " vuelva a generar el parcial " + shard + "/" + shards);
+            }
+            int sellerCount = readCount(in, file);
+            long[] documentNumbers = new long[sellerCount];
+            long[] salesCents = new long[sellerCount];
+            for (int i = 0; i < sellerCount; i++) {
+                documentNumbers[i] = in.readLong();
+                salesCents[i] = in.readLong();
+            }
+            int productCount = readCount(in, file);
+            int[] productIds = new int[productCount];
+            long[] quantities = new long[productCount];
+            for (int i = 0; i < productCount; i++) {
+                productIds[i] = in.readInt();
+                quantities[i] = in.readLong();
+            }
+            int rejectionCount = readCount(in, file);
+            List<Quarantine.Rejection> rejections = new ArrayList<>(rejectionCount);
+            for (int i = 0; i < rejectionCount; i++) {
+                rejections.add(Quarantine.Rejection.read(in.readUTF(), in));
+            }
+            return new PartialAggregate(shard, shards, fingerprint, documentNumbers, salesCents, productIds, quantities,
+                    rejections);
+        }
+    }
+
+    /**
+     * Writes the partial aggregate to the given file. The data is written to a temporary
+     * file first and then renamed, so the merge never sees a truncated partial.
+     *
+     * @param file The partial file.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void write(File file) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        File temp = new File(dir, file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(shard);
+            out.writeInt(shards);
+            out.writeLong(fingerprint);
+            out.writeInt(documentNumbers.length);
+            for (int i = 0; i < documentNumbers.length; i++) {
+                out.writeLong(documentNumbers[i]);
+                out.writeLong(salesCents[i]);
+            }
+            out.writeInt(productIds.length);
+            for (int i = 0; i < productIds.length; i++) {
+                out.writeInt(productIds[i]);
+                out.writeLong(quantities[i]);
+            }
+            out.writeInt(rejections.size());
+            for (Quarantine.Rejection rejection : rejections) {
+                out.writeUTF(rejection.source);
+                rejection.write(out);
+            }
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Adds the totals of this partial to the given sellers and products. Totals of sellers
+     * or products that are not in the lists are ignored.
+     *
+     * @param sellers The sellers to add the sales totals to.
+     * @param products The products to add the sold quantities to.
+     */
+    public void applyTo(SellerIndex sellers, ProductIndex products) {
+        for (int i = 0; i < documentNumbers.length; i++) {
+            Seller seller = sellers.find(documentNumbers[i]);
+            if (seller != null) {
+                seller.addSale(salesCents[i]);
+            }
+        }
+        for (int i = 0; i < productIds.length; i++) {
+            Product product = products.find(productIds[i]);
+            if (product != null) {
+                product.incrementSoldQuantity(quantities[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns the lines the shard rejected from its sales files, in the order it rejected them.
+     *
+     * @return The rejected lines.
+     */
+    List<Quarantine.Rejection> getRejections() {
+        return rejections;
+    }
+
+    private static int readCount(DataInputStream in, File file) throws IOException {
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Archivo parcial invlido: " + file);
+        }
+        return count;
+    }
+}
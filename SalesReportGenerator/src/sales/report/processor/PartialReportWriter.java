@@ -0,0 +1,125 @@
+package sales.report.processor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import sales.report.model.Product;
+import sales.report.model.Seller;
+import sales.report.model.SellerStore;
+import sales.util.Constants;
+
+/**
+ * The PartialReportWriter class passes sales on to an {@link Aggregator} and, while they are
+ * still being read, rewrites top-K sellers and products reports ranked on the totals so far.
+ * A partial ranking is written at most once per interval; the clock is only read every
+ * {@link #CHECK_EVERY} sales, so the hot path pays a counter increment per sale. Each ranking
+ * costs O(n log k) over the n sellers and products, through the same bounded heaps as the
+ * final top-K reports, and is renamed into place atomically.
+ *
+ * <p>Sales must be offered from the thread that reads them, since the rankings are taken from
+ * the live totals between two sales. Closing the writer deletes the partial reports, which are
+ * superseded by the final ones.</p>
+ */
+public class PartialReportWriter implements SaleHandler, Closeable {
+    /** Number of sales between two reads of the clock. */
+    static final int CHECK_EVERY = 64 * 1024;
+
+    private final Aggregator aggregator;
+    private final List<Seller> sellers;
+    private final SellerStore sellerStore;
+    private final List<Product> products;
+    private final CatalogIndex catalog;
+    private final ProcessorOptions options;
+    private final long intervalNanos;
+    private long nextReport;
+    private int sinceCheck;
+
+    /**
+     * Constructs a PartialReportWriter in front of the given aggregator.
+     *
+     * @param aggregator The aggregator that updates the sellers and products.
+     * @param sellers The sellers whose totals are ranked.
+     * @param sellerStore The store the sellers are views over, or null if they are plain objects.
+     * @param products The products whose sold quantities are ranked.
+     * @param catalog The bitmap indexes over the sellers and products, or null if the options
+     *                do not filter the reports.
+     * @param options The options that select the size, interval and filters of the reports.
+     */
+    public PartialReportWriter(Aggregator aggregator, List<Seller> sellers, SellerStore sellerStore,
+                               List<Product> products, CatalogIndex catalog, ProcessorOptions options) {
+        this.aggregator = aggregator;
+        this.sellers = sellers;
+        this.sellerStore = sellerStore;
+        this.products = products;
+        this.catalog = catalog;
+        this.options = options;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(options.getPartialReportMillis());
+        this.nextReport = System.nanoTime() + intervalNanos;
+    }
+
+    @Override
+    public void onSale(long sellerDocumentNumber, int productId, int quantity) {
+        offerSale(sellerDocumentNumber, productId, quantity);
+    }
+
+    /**
+     * Offers the sale to the aggregator and writes the partial reports if the interval has
+     * elapsed since the last ones.
+     *
+     * @throws UncheckedIOException If the partial reports cannot be written.
+     */
+    @Override
+    public RejectReason offerSale(long sellerDocumentNumber, int productId, int quantity) {
+        RejectReason reason = aggregator.offerSale(sellerDocumentNumber, productId, quantity);
+        if (++sinceCheck == CHECK_EVERY) {
+            sinceCheck = 0;
+            if (System.nanoTime() - nextReport >= 0) {
+                try {
+                    write();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                nextReport = System.nanoTime() + intervalNanos;
+            }
+        }
+        return reason;
+    }
+
+    /**
+     * Writes the partial reports for the totals aggregated so far.
+     *
+     * @throws IOException If an I/O error occurs while writing the reports.
+     */
+    public void write() throws IOException {
+        String sellersTemp = Constants.SELLERS_PARTIAL_REPORT + ".tmp";
+        String productsTemp = Constants.PRODUCTS_PARTIAL_REPORT + ".tmp";
+        // Measured as part of the reading phase, not as phases of their own
+        Main.writeReports(sellers, sellerStore, products, catalog, options, new PipelineMetrics(),
+                sellersTemp, productsTemp);
+        replace(sellersTemp, Constants.SELLERS_PARTIAL_REPORT);
+        replace(productsTemp, Constants.PRODUCTS_PARTIAL_REPORT);
+    }
+
+    /**
+     * Deletes the partial reports.
+     *
+     * @throws IOException If a partial report cannot be deleted.
+     */
+    @Override
+    public void close() throws IOException {
+        Files.deleteIfExists(Paths.get(Constants.REPORTS_DIRECTORY, Constants.SELLERS_PARTIAL_REPORT));
+        Files.deleteIfExists(Paths.get(Constants.REPORTS_DIRECTORY, Constants.PRODUCTS_PARTIAL_REPORT));
+    }
+
+    private static void replace(String tempName, String fileName) throws IOException {
+        Path reportsDirectory = Paths.get(Constants.REPORTS_DIRECTORY);
+        Files.move(reportsDirectory.resolve(tempName), reportsDirectory.resolve(fileName),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,104 @@
+package sales.report.processor;
+
+import sales.util.Money;
+
+/**
+ * The PartialTotals class keeps the totals of some of the sales apart from an
+ * {@link Aggregator}, in arrays indexed by the aggregator's own seller and product slots. Each
+ * worker thread fills a partial of its own, so workers share nothing and take no locks; the
+ * partials are then merged slot by slot and added to the aggregator with
+ * {@link Aggregator#addPartial}, which updates each seller and product once.
+ *
+ * <p>Partials are created by {@link Aggregator#newPartial}. Totals and sold quantities are
+ * exact sums of longs, so splitting the sales never changes the result.</p>
+ */
+public final class PartialTotals implements SaleHandler {
+
+    /**
+     * Resolves sales to the slots of the aggregator a partial belongs to.
+     */
+    interface Slots {
+
+        int sellerSlotOf(long documentNumber);
+
+        int productSlotOf(int productId);
+
+        long getPriceCents(int productSlot);
+    }
+
+    private final Slots slots;
+    final long[] salesCents;
+    final long[] soldQuantities;
+    final SalesTally tally;
+
+    /**
+     * Constructs empty totals over the given slots.
+     *
+     * @param slots The slots of the aggregator.
+     * @param sellerSlots The number of seller slots.
+     * @param productSlots The number of product slots.
+     */
+    PartialTotals(Slots slots, int sellerSlots, int productSlots) {
+        this(slots, sellerSlots, productSlots, null);
+    }
+
+    private PartialTotals(Slots slots, int sellerSlots, int productSlots, SalesTally tally) {
+        this.slots = slots;
+        this.salesCents = new long[sellerSlots];
+        this.soldQuantities = new long[productSlots];
+        this.tally = tally;
+    }
+
+    /**
+     * Returns new, empty totals over the same slots that also tally every sale they accept.
+     *
+     * @return The new partial.
+     */
+    PartialTotals tallying() {
+        return new PartialTotals(slots, salesCents.length, soldQuantities.length, new SalesTally());
+    }
+
+    @Override
+    public void onSale(long sellerDocumentNumber, int productId, int quantity) {
+        offerSale(sellerDocumentNumber, productId, quantity);
+    }
+
+    @Override
+    public RejectReason offerSale(long sellerDocumentNumber, int productId, int quantity) {
+        int seller = slots.sellerSlotOf(sellerDocumentNumber);
+        if (seller < 0) {
+            return RejectReason.UNKNOWN_SELLER;
+        }
+        int product = slots.productSlotOf(productId);
+        if (product < 0) {
+            return RejectReason.UNKNOWN_PRODUCT;
+        }
+        long amount = Money.multiply(slots.getPriceCents(product), quantity);
+        salesCents[seller] = Money.add(salesCents[seller], amount);
+        soldQuantities[product] = Math.addExact(soldQuantities[product], quantity);
+        if (tally != null) {
+            tally.add(sellerDocumentNumber, productId, quantity);
+        }
+        return null;
+    }
+
+    /**
+     * Adds another partial of the same aggregator to this one.
+     *
+     * @param other The partial to add.
+     * @return This partial.
+     * @throws ArithmeticException If a seller's total or a product's sold quantity overflows.
+     */
+    public PartialTotals merge(PartialTotals other) {
+        for (int slot = 0; slot < salesCents.length; slot++) {
+            salesCents[slot] = Money.add(salesCents[slot], other.salesCents[slot]);
+        }
+        for (int slot = 0; slot < soldQuantities.length; slot++) {
+            soldQuantities[slot] = Math.addExact(soldQuantities[slot], other.soldQuantities[slot]);
+        }
+        if (tally != null) {
+            tally.addAll(other.tally);
+        }
+        return this;
+    }
+}
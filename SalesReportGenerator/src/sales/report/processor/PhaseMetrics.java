@@ -0,0 +1,101 @@
+package sales.report.processor;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * The PhaseMetrics class holds the measurements of one finished phase of the report pipeline.
+ * It is immutable and follows the MXBean conventions, so JMX clients see each phase as a
+ * composite value.
+ */
+public class PhaseMetrics {
+    private final String name;
+    private final long wallNanos;
+    private final long bytes;
+    private final long lines;
+    private final long rejected;
+    private final long allocatedBytes;
+
+    /**
+     * Constructs a PhaseMetrics object with the specified measurements.
+     *
+     * @param name The name of the phase.
+     * @param wallNanos The elapsed wall-clock time, in nanoseconds.
+     * @param bytes The number of bytes read or written.
+     * @param lines The number of data lines read.
+     * @param rejected The number of lines rejected.
+     * @param allocatedBytes The number of bytes allocated on the heap, or -1 if the JVM cannot tell.
+     */
+    @ConstructorProperties({"name", "wallNanos", "bytes", "lines", "rejected", "allocatedBytes"})
+    public PhaseMetrics(String name, long wallNanos, long bytes, long lines, long rejected, long allocatedBytes) {
+        this.name = name;
+        this.wallNanos = wallNanos;
+        this.bytes = bytes;
+        this.lines = lines;
+        this.rejected = rejected;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    /**
+     * Returns the name of the phase.
+     *
+     * @return The name, such as "read_sales".
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the elapsed wall-clock time of the phase.
+     *
+     * @return The time, in nanoseconds.
+     */
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    /**
+     * Returns the number of bytes the phase read or wrote.
+     *
+     * @return The number of bytes.
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the number of data lines the phase read.
+     *
+     * @return The number of lines, not counting headers.
+     */
+    public long getLines() {
+        return lines;
+    }
+
+    /**
+     * Returns the number of lines the phase rejected.
+     *
+     * @return The number of lines sent to the quarantine.
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Returns the number of bytes allocated on the heap during the phase, by the threads alive
+     * when it ended and by the pipeline's worker and decompression threads that ended before.
+     *
+     * @return The number of bytes, or -1 if the JVM cannot tell.
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Returns the throughput of the phase.
+     *
+     * @return The number of lines read per second, or 0 if the phase read no lines.
+     */
+    public double getLinesPerSecond() {
+        return wallNanos > 0 ? lines * 1e9 / wallNanos : 0;
+    }
+}
@@ -0,0 +1,268 @@
+package sales.report.processor;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * The PipelineMetrics class records the wall time, I/O counters and heap allocation of each
+ * phase of a report run. Finished phases can be written as a JSON summary and are published
+ * over JMX once {@link #register()} has been called.
+ *
+ * <p>Allocation is read from the per-thread counters of the HotSpot ThreadMXBean, summed over
+ * the threads alive when the phase ends. A counter is lost when its thread ends, so threads
+ * made by {@link #newPool} and {@link #newThread} read their own counter just before they
+ * end and add it to every open phase; other threads that end before the phase does are not
+ * counted.</p>
+ */
+public class PipelineMetrics implements PipelineMetricsMXBean {
+    /** Name under which the metrics are registered in the platform MBean server. */
+    public static final String OBJECT_NAME = "sales.report:type=PipelineMetrics";
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    /** Phases of every instance that are being measured, so ending threads can report to them. */
+    private static final Set<Phase> OPEN_PHASES = ConcurrentHashMap.newKeySet();
+
+    private static final ForkJoinPool.ForkJoinWorkerThreadFactory WORKER_THREADS = pool -> new ForkJoinWorkerThread(pool) {
+        @Override
+        protected void onTermination(Throwable exception) {
+            try {
+                threadEnding();
+            } finally {
+                super.onTermination(exception);
+            }
+        }
+    };
+
+    private final List<PhaseMetrics> phases = new CopyOnWriteArrayList<>();
+
+    /**
+     * Starts measuring a phase. The phase is recorded when it is closed.
+     *
+     * @param name The name of the phase.
+     * @return The running phase.
+     */
+    public Phase start(String name) {
+        return new Phase(name);
+    }
+
+    @Override
+    public List<PhaseMetrics> getPhases() {
+        return new ArrayList<>(phases);
+    }
+
+    @Override
+    public long getTotalWallNanos() {
+        long total = 0;
+        for (PhaseMetrics phase : phases) {
+            total += phase.getWallNanos();
+        }
+        return total;
+    }
+
+    /**
+     * Returns a new fork-join pool whose workers add what they allocated to the open phases
+     * before they end.
+     *
+     * @param parallelism The number of worker threads.
+     * @return The new pool.
+     */
+    static ForkJoinPool newPool(int parallelism) {
+        return new ForkJoinPool(parallelism, WORKER_THREADS, null, false);
+    }
+
+    /**
+     * Returns a new thread that adds what it allocated to the open phases before it ends.
+     *
+     * @param task The task the thread runs.
+     * @return The new, unstarted thread.
+     */
+    static Thread newThread(Runnable task) {
+        return new Thread(() -> {
+            try {
+                task.run();
+            } finally {
+                threadEnding();
+            }
+        });
+    }
+
+    /**
+     * Registers these metrics in the platform MBean server under {@link #OBJECT_NAME},
+     * replacing any metrics registered by an earlier run in the same JVM.
+     */
+    public void register() {
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            }
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+        } catch (JMException | SecurityException e) {
+            System.err.println("No se pudieron publicar las mtricas por JMX: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the finished phases as a JSON document.
+     *
+     * @param file The file to write.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void writeJson(File file) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        StringBuilder json = new StringBuilder(256 + phases.size() * 192);
+        json.append("{\n  \"totalWallMillis\": ").append(millis(getTotalWallNanos())).append(",\n  \"phases\": [");
+        String separator = "\n";
+        for (PhaseMetrics phase : phases) {
+            json.append(separator)
+                .append("    {\"name\": \"").append(phase.getName())
+                .append("\", \"wallMillis\": ").append(millis(phase.getWallNanos()))
+                .append(", \"bytes\": ").append(phase.getBytes())
+                .append(", \"lines\": ").append(phase.getLines())
+                .append(", \"linesPerSecond\": ").append(String.format(Locale.ROOT, "%.1f", phase.getLinesPerSecond()))
+                .append(", \"rejected\": ").append(phase.getRejected())
+                .append(", \"allocatedBytes\": ").append(phase.getAllocatedBytes())
+                .append('}');
+            separator = ",\n";
+        }
+        json.append("\n  ]\n}\n");
+        Files.write(file.toPath(), json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    /**
+     * Adds the bytes allocated by the current thread, which is about to end, to every open
+     * phase.
+     */
+    private static void threadEnding() {
+        if (OPEN_PHASES.isEmpty() || !(THREADS instanceof com.sun.management.ThreadMXBean)) {
+            return;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+        long id = Thread.currentThread().getId();
+        long allocated = threads.getThreadAllocatedBytes(id);
+        if (allocated < 0) {
+            return;
+        }
+        for (Phase phase : OPEN_PHASES) {
+            phase.threadEnded(id, allocated);
+        }
+    }
+
+    /**
+     * Returns the bytes allocated so far by each live thread, or null if the JVM does not
+     * support allocation counters.
+     */
+    private static Map<Long, Long> allocatedBytes() {
+        if (!(THREADS instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+        if (!threads.isThreadAllocatedMemorySupported() || !threads.isThreadAllocatedMemoryEnabled()) {
+            return null;
+        }
+        long[] ids = threads.getAllThreadIds();
+        long[] allocated = threads.getThreadAllocatedBytes(ids);
+        Map<Long, Long> byThread = new HashMap<>(ids.length * 2);
+        for (int i = 0; i < ids.length; i++) {
+            if (allocated[i] >= 0) {
+                byThread.put(ids[i], allocated[i]);
+            }
+        }
+        return byThread;
+    }
+
+    /**
+     * A phase being measured. Readers add their counters to {@link #getStats()}; closing the
+     * phase stops the clock and records it.
+     */
+    public class Phase implements AutoCloseable {
+        private final String name;
+        private final ReadStats stats = new ReadStats();
+        private final Map<Long, Long> allocatedAtStart;
+        private final Map<Long, Long> allocatedByEndedThreads = new HashMap<>();
+        private final long startNanos;
+        private boolean closed;
+
+        private Phase(String name) {
+            this.name = name;
+            this.allocatedAtStart = allocatedBytes();
+            this.startNanos = System.nanoTime();
+            OPEN_PHASES.add(this);
+        }
+
+        /**
+         * Returns the counters of this phase.
+         *
+         * @return The counters to pass to the readers.
+         */
+        public ReadStats getStats() {
+            return stats;
+        }
+
+        /**
+         * Stops measuring the phase and records it. Closing a phase twice has no effect.
+         */
+        @Override
+        public synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            OPEN_PHASES.remove(this);
+            long wallNanos = System.nanoTime() - startNanos;
+            long allocated = -1;
+            Map<Long, Long> allocatedAtEnd = allocatedBytes();
+            if (allocatedAtStart != null && allocatedAtEnd != null) {
+                allocated = 0;
+                for (Map.Entry<Long, Long> thread : allocatedAtEnd.entrySet()) {
+                    // A thread that reported its end may still be listed until it is gone
+                    if (!allocatedByEndedThreads.containsKey(thread.getKey())) {
+                        allocated += sinceStart(thread.getKey(), thread.getValue());
+                    }
+                }
+                for (long bytes : allocatedByEndedThreads.values()) {
+                    allocated += bytes;
+                }
+            }
+            phases.add(new PhaseMetrics(name, wallNanos, stats.getBytes(), stats.getLines(), stats.getRejected(), allocated));
+        }
+
+        /**
+         * Records the bytes allocated by a thread that is about to end.
+         */
+        private synchronized void threadEnded(long threadId, long allocated) {
+            if (!closed && allocatedAtStart != null) {
+                allocatedByEndedThreads.put(threadId, sinceStart(threadId, allocated));
+            }
+        }
+
+        private long sinceStart(long threadId, long allocated) {
+            Long before = allocatedAtStart.get(threadId);
+            return allocated - (before == null ? 0 : before);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package sales.report.processor;
+
+import java.util.List;
+
+/**
+ * Management interface through which {@link PipelineMetrics} is published over JMX.
+ */
+public interface PipelineMetricsMXBean {
+
+    /**
+     * Returns the measurements of the phases finished so far, in the order they ran.
+     *
+     * @return The finished phases.
+     */
+    List<PhaseMetrics> getPhases();
+
+    /**
+     * Returns the wall-clock time spent in the finished phases.
+     *
+     * @return The total time, in nanoseconds.
+     */
+    long getTotalWallNanos();
+}
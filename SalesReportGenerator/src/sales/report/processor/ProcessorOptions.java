@@ -0,0 +1,385 @@
+package sales.report.processor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The ProcessorOptions class holds the command-line options accepted by the report
+ * processor. Options use the form {@code --name=value}; unknown options are rejected, and so
+ * are combinations in which one option would be ignored:
+ *
+ * <ul>
+ *   <li>{@code --threads=N} reads and adds up the sales on N worker threads, in shard and
+ *       incremental runs too.</li>
+ *   <li>{@code --incremental} only parses the sales files changed since the last run.</li>
+ *   <li>{@code --top=K} limits both reports to the K best sellers and products.</li>
+ *   <li>{@code --partial-reports=MS} also rewrites the top-K reports every MS milliseconds,
+ *       ranked on the totals so far, while a single thread reads the sales; it requires
+ *       {@code --top} and cannot be combined with {@code --threads}, {@code --incremental},
+ *       {@code --shard}, {@code --merge}, {@code --watch} or {@code --serve}.</li>
+ *   <li>{@code --sort-budget=N} ranks the sellers with an external sort that buffers at most N
+ *       of them; it requires {@code --storage=offheap} and cannot be combined with
+ *       {@code --top}.</li>
+ *   <li>{@code --watch} keeps running and updates the reports whenever files in 'data' change;
+ *       it cannot be combined with {@code --incremental}, {@code --shard}, {@code --merge} or
+ *       {@code --storage=offheap}.</li>
+ *   <li>{@code --debounce=MS} waits until 'data' has been quiet for MS milliseconds, 500 unless
+ *       given; it requires {@code --watch} or {@code --serve}.</li>
+ *   <li>{@code --shard=I/N} only reads shard I of N of the sales files and writes a partial
+ *       aggregate; it cannot be combined with {@code --merge}, {@code --incremental},
+ *       {@code --top}, {@code --sort-budget}, {@code --document-type}, {@code --product} or
+ *       {@code --cube}.</li>
+ *   <li>{@code --merge=N} writes the reports from the partials of N shards, with the lines the
+ *       shards rejected; it cannot be combined with {@code --incremental}, {@code --threads} or
+ *       {@code --cube}.</li>
+ *   <li>{@code --storage=offheap} keeps sellers and products in off-heap column stores.</li>
+ *   <li>{@code --cube} also writes how much of each product, and of each product name, every
+ *       seller sold.</li>
+ *   <li>{@code --serve=PORT} keeps the totals in memory, updated as in watch mode and with its
+ *       restrictions, and answers queries on that local port and from the standard input.</li>
+ *   <li>{@code --document-type=CC,CE} and {@code --product=Laptop,Tablet} restrict the reports
+ *       to those document types and product names; they cannot be combined with
+ *       {@code --sort-budget} or {@code --storage=offheap}.</li>
+ * </ul>
+ */
+public class ProcessorOptions {
+    private static final int DEFAULT_DEBOUNCE_MILLIS = 500;
+
+    private int threads = 1;
+    private boolean incremental;
+    private int top;
+    private int partialReportMillis;
+    private int sortBudget;
+    private boolean watch;
+    private int debounceMillis;
+    private int shard = -1;
+    private int shards;
+    private int mergeShards;
+    private boolean offHeap;
+    private boolean cube;
+    private int servePort;
+    private List<String> documentTypes = Collections.emptyList();
+    private List<String> productNames = Collections.emptyList();
+
+    /**
+     * Parses the command-line arguments into a ProcessorOptions object.
+     *
+     * @param args The command-line arguments.
+     * @return The parsed options.
+     * @throws IllegalArgumentException If an argument is not a recognised option.
+     */
+    public static ProcessorOptions parse(String[] args) {
+        ProcessorOptions options = new ProcessorOptions();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            String name = eq < 0 ? arg : arg.substring(0, eq);
+            String value = eq < 0 ? null : arg.substring(eq + 1);
+            switch (name) {
+                case "--threads":
+                    options.threads = parsePositiveInt(name, value);
+                    break;
+                case "--incremental":
+                    options.incremental = true;
+                    break;
+                case "--top":
+                    options.top = parsePositiveInt(name, value);
+                    break;
+                case "--partial-reports":
+                    options.partialReportMillis = parsePositiveInt(name, value);
+                    break;
+                case "--sort-budget":
+                    options.sortBudget = parsePositiveInt(name, value);
+                    break;
+                case "--watch":
+                    options.watch = true;
+                    break;
+                case "--debounce":
+                    options.debounceMillis = parsePositiveInt(name, value);
+                    break;
+                case "--shard":
+                    options.parseShard(name, value);
+                    break;
+                case "--merge":
+                    options.mergeShards = parsePositiveInt(name, value);
+                    break;
+                case "--storage":
+                    if ("offheap".equals(value) || "heap".equals(value)) {
+                        options.offHeap = "offheap".equals(value);
+                    } else {
+                        throw new IllegalArgumentException("Valor invlido para " + name + ": " + value);
+                    }
+                    break;
+                case "--cube":
+                    options.cube = true;
+                    break;
+                case "--document-type":
+                    options.documentTypes = parseList(name, value);
+                    break;
+                case "--product":
+                    options.productNames = parseList(name, value);
+                    break;
+                case "--serve":
+                    options.servePort = parsePositiveInt(name, value);
+                    if (options.servePort > 65535) {
+                        throw new IllegalArgumentException("Valor invlido para " + name + ": " + value);
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Opcin desconocida: " + arg);
+            }
+        }
+        // A shard run writes a partial, a merge run reads them; one run cannot do both
+        if (options.shard >= 0 && options.mergeShards > 0) {
+            throw new IllegalArgumentException("La opcin --shard no se puede combinar con --merge");
+        }
+        // A merge only reads the partials, and keeps no snapshot of the sales files
+        if (options.mergeShards > 0 && (options.incremental || options.threads > 1)) {
+            throw new IllegalArgumentException("La opcin --merge no se puede combinar con --incremental ni --threads");
+        }
+        // A shard run only writes a partial aggregate: it keeps no snapshot and writes no reports
+        if (options.shard >= 0 && (options.incremental || options.top > 0 || options.sortBudget > 0
+                || options.hasFilter())) {
+            throw new IllegalArgumentException("La opcin --shard no se puede combinar con --incremental, --top, --sort-budget, --document-type ni --product");
+        }
+        // Partial aggregates only keep the totals, not which seller sold which product
+        if (options.cube && (options.shard >= 0 || options.mergeShards > 0)) {
+            throw new IllegalArgumentException("La opcin --cube no se puede combinar con --shard ni --merge");
+        }
+        // Watching keeps its own snapshot and heap totals over all of the sales files
+        if ((options.watch || options.servePort > 0)
+                && (options.incremental || options.shard >= 0 || options.mergeShards > 0 || options.offHeap)) {
+            throw new IllegalArgumentException("Las opciones --watch y --serve no se pueden combinar con --incremental, --shard, --merge ni --storage=offheap");
+        }
+        // Only the watcher waits for the data directory to stay quiet
+        if (options.debounceMillis > 0 && !options.watch && options.servePort == 0) {
+            throw new IllegalArgumentException("La opcin --debounce requiere --watch o --serve");
+        }
+        // A top-K report never sorts every seller, so a sort budget would be ignored
+        if (options.top > 0 && options.sortBudget > 0) {
+            throw new IllegalArgumentException("La opcin --top no se puede combinar con --sort-budget");
+        }
+        // Partial rankings are taken from the live totals between two sales read by one thread
+        if (options.partialReportMillis > 0 && (options.top == 0 || options.threads > 1 || options.incremental
+                || options.shard >= 0 || options.mergeShards > 0 || options.watch || options.servePort > 0)) {
+            throw new IllegalArgumentException("La opcin --partial-reports requiere --top y no se puede combinar con --threads, --incremental, --shard, --merge, --watch ni --serve");
+        }
+        // The external sort spills the sellers straight from the off-heap store's columns
+        if (options.sortBudget > 0 && !options.offHeap) {
+            throw new IllegalArgumentException("La opcin --sort-budget requiere --storage=offheap");
+        }
+        // Filtered reports are ranked in memory from the catalog index, not from the stores
+        if (options.hasFilter() && (options.sortBudget > 0 || options.offHeap)) {
+            throw new IllegalArgumentException("Las opciones --document-type y --product no se pueden combinar con --sort-budget ni --storage=offheap");
+        }
+        return options;
+    }
+
+    private void parseShard(String name, String value) {
+        int slash = value == null ? -1 : value.indexOf('/');
+        try {
+            if (slash > 0) {
+                shard = Integer.parseInt(value.substring(0, slash));
+                shards = Integer.parseInt(value.substring(slash + 1));
+                if (shard >= 0 && shard < shards) {
+                    return;
+                }
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Valor invlido para " + name + ": " + value);
+    }
+
+    private static List<String> parseList(String name, String value) {
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Valor invlido para " + name + ": " + value);
+        }
+        return Arrays.asList(value.split(","));
+    }
+
+    private static int parsePositiveInt(String name, String value) {
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed > 0) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Valor invlido para " + name + ": " + value);
+    }
+
+    /**
+     * Returns the number of worker threads used to read the sales files and add up the sales.
+     *
+     * @return The thread count, 1 for sequential reading.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Returns whether only new or changed sales files are parsed, reusing the aggregates
+     * saved by the previous run for the others.
+     *
+     * @return true for incremental processing.
+     */
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * Returns the number of sellers and products to include in the reports.
+     *
+     * @return The report size limit, or 0 to include every seller and product.
+     */
+    public int getTop() {
+        return top;
+    }
+
+    /**
+     * Returns how often the top-K reports ranked on the totals so far are rewritten while the
+     * sales are still being read.
+     *
+     * @return The interval in milliseconds, or 0 to only write the final reports.
+     */
+    public int getPartialReportMillis() {
+        return partialReportMillis;
+    }
+
+    /**
+     * Returns the maximum number of sellers in the sort buffer when ranking them; larger
+     * rankings are sorted in runs spilled to temporary files and merged. This bounds the
+     * memory of the sort only: the sellers and their totals stay in memory for aggregation.
+     *
+     * @return The sort budget, or 0 to sort every seller in memory.
+     */
+    public int getSortBudget() {
+        return sortBudget;
+    }
+
+    /**
+     * Returns whether the processor keeps running, updating the reports whenever files in
+     * the data directory change.
+     *
+     * @return true for watch mode.
+     */
+    public boolean isWatch() {
+        return watch;
+    }
+
+    /**
+     * Returns how long the data directory must stay quiet in watch mode before the reports
+     * are updated, so that a burst of files is handled in a single update.
+     *
+     * @return The debounce delay in milliseconds, 500 unless set.
+     */
+    public int getDebounceMillis() {
+        return debounceMillis > 0 ? debounceMillis : DEFAULT_DEBOUNCE_MILLIS;
+    }
+
+    /**
+     * Returns whether this run processes a single shard of the sales files and writes its
+     * partial aggregate instead of the reports.
+     *
+     * @return true for a shard run.
+     */
+    public boolean isShard() {
+        return shard >= 0;
+    }
+
+    /**
+     * Returns the index of the shard processed by a shard run.
+     *
+     * @return The shard index, from 0 to {@link #getShards()} - 1, or -1 if this is not a shard run.
+     */
+    public int getShard() {
+        return shard;
+    }
+
+    /**
+     * Returns the number of shards of a shard run.
+     *
+     * @return The shard count, or 0 if this is not a shard run.
+     */
+    public int getShards() {
+        return shards;
+    }
+
+    /**
+     * Returns the number of partial aggregates to merge into the reports instead of reading
+     * the sales files.
+     *
+     * @return The shard count of the partials, or 0 if this is not a merge run.
+     */
+    public int getMergeShards() {
+        return mergeShards;
+    }
+
+    /**
+     * Returns whether sellers and products are kept in off-heap column stores instead of
+     * one object each. Watch mode always keeps them on the heap.
+     *
+     * @return true for off-heap storage.
+     */
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    /**
+     * Returns whether the sales are also broken down by seller and product, writing the
+     * seller by product and seller by product name reports.
+     *
+     * @return true to write the cube reports.
+     */
+    public boolean isCube() {
+        return cube;
+    }
+
+    /**
+     * Returns the document types the sellers report is restricted to.
+     *
+     * @return The document types, or an empty list for all sellers.
+     */
+    public List<String> getDocumentTypes() {
+        return documentTypes;
+    }
+
+    /**
+     * Returns the product names the products report is restricted to.
+     *
+     * @return The product names, or an empty list for all products.
+     */
+    public List<String> getProductNames() {
+        return productNames;
+    }
+
+    /**
+     * Returns whether the reports are restricted to some document types or product names.
+     *
+     * @return true if a filter was given.
+     */
+    public boolean hasFilter() {
+        return !documentTypes.isEmpty() || !productNames.isEmpty();
+    }
+
+    /**
+     * Returns whether the aggregates are kept in memory to answer queries over HTTP and from
+     * the standard input. Serving implies watch mode, so the answers follow new sales files.
+     *
+     * @return true to serve queries.
+     */
+    public boolean isServe() {
+        return servePort > 0;
+    }
+
+    /**
+     * Returns the local port the queries are served on.
+     *
+     * @return The port, or 0 if queries are not served.
+     */
+    public int getServePort() {
+        return servePort;
+    }
+}
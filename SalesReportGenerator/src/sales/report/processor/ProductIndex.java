@@ -0,0 +1,108 @@
+package sales.report.processor;
+
+import java.util.Arrays;
+import java.util.List;
+import sales.report.model.Product;
+import sales.util.LongIndex;
+
+/**
+ * The ProductIndex class provides constant-time lookup of products by ID. Product IDs
+ * are usually small consecutive integers, so the index is a dense array offset by the lowest
+ * ID. When the IDs are spread over a range much larger than the number of products, the
+ * index falls back to an open-addressing {@link LongIndex} so its size stays proportional to
+ * the product count.
+ */
+public class ProductIndex {
+    private static final int NOT_FOUND = -1;
+    /** The dense array is used while the ID range is at most this many times the product count. */
+    private static final int MAX_SPREAD = 4;
+
+    private final Product[] products;
+    private final int[] slots;
+    private final int minId;
+    private final LongIndex sparse;
+
+    /**
+     * Builds the index over the given products. When several products share an ID,
+     * the first one in the list wins, as it did with the previous linear search.
+     *
+     * @param products The products to index.
+     */
+    public ProductIndex(List<Product> products) {
+        this.products = products.toArray(new Product[0]);
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (Product product : this.products) {
+            min = Math.min(min, product.getId());
+            max = Math.max(max, product.getId());
+        }
+        this.minId = this.products.length == 0 ? 0 : min;
+        long range = this.products.length == 0 ? 0 : (long) max - min + 1;
+        if (range > Math.max(1024L, (long) MAX_SPREAD * this.products.length)) {
+            this.slots = new int[0];
+            this.sparse = new LongIndex(this.products.length);
+            for (int i = 0; i < this.products.length; i++) {
+                sparse.putIfAbsent(this.products[i].getId(), i);
+            }
+            return;
+        }
+        this.sparse = null;
+        this.slots = new int[(int) range];
+        Arrays.fill(slots, NOT_FOUND);
+
+        for (int i = 0; i < this.products.length; i++) {
+            int offset = this.products[i].getId() - minId;
+            if (slots[offset] == NOT_FOUND) {
+                slots[offset] = i;
+            }
+        }
+    }
+
+    /**
+     * Returns the position of the product with the given ID in the list the index
+     * was built from.
+     *
+     * @param id The product ID.
+     * @return The product's position, or -1 if no product has that ID.
+     */
+    public int slotOf(int id) {
+        if (sparse != null) {
+            return sparse.get(id);
+        }
+        long offset = (long) id - minId;
+        if (offset < 0 || offset >= slots.length) {
+            return NOT_FOUND;
+        }
+        return slots[(int) offset];
+    }
+
+    /**
+     * Finds a product by its ID.
+     *
+     * @param id The product ID.
+     * @return The Product object if found, otherwise null.
+     */
+    public Product find(int id) {
+        int slot = slotOf(id);
+        return slot == NOT_FOUND ? null : products[slot];
+    }
+
+    /**
+     * Returns the product stored at the given position.
+     *
+     * @param slot A position previously returned by {@link #slotOf(int)}.
+     * @return The Product object at that position.
+     */
+    public Product get(int slot) {
+        return products[slot];
+    }
+
+    /**
+     * Returns the number of products in the index.
+     *
+     * @return The product count.
+     */
+    public int size() {
+        return products.length;
+    }
+}
@@ -0,0 +1,289 @@
+package sales.report.processor;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import sales.util.CsvWriter;
+
+/**
+ * The Quarantine class collects the input lines that cannot be used: lines with the wrong
+ * number of fields or an invalid number, and sales of unknown sellers or products. Each
+ * rejected line is counted under its {@link RejectReason} and, unless the quarantine only
+ * counts, written to a side file with its file name, line number and reason. The content of
+ * the line is quoted, since a malformed line may hold any number of separators. The side file
+ * is created on the first rejection.
+ *
+ * <p>Readers only call into the quarantine for the lines they reject, so valid lines pay
+ * nothing for it. It is thread-safe, so parallel readers can share one instance.</p>
+ */
+public class Quarantine implements Closeable {
+    private final File file;
+    private final List<Rejection> recorded;
+    private final long[] counts = new long[RejectReason.values().length];
+    private CsvWriter writer;
+    private IOException error;
+
+    /**
+     * Constructs a Quarantine that writes the rejected lines to the given file.
+     *
+     * @param file The side file, replaced on the first rejection.
+     */
+    public Quarantine(File file) {
+        this(file, null);
+    }
+
+    private Quarantine(File file, List<Rejection> recorded) {
+        this.file = file;
+        this.recorded = recorded;
+    }
+
+    /**
+     * Returns a Quarantine that counts the rejected lines without writing them anywhere.
+     *
+     * @return A new counting Quarantine.
+     */
+    public static Quarantine counting() {
+        return new Quarantine(null);
+    }
+
+    /**
+     * Returns a Quarantine that keeps the rejected lines in memory, so that they can be
+     * replayed into another quarantine later with {@link #replay}.
+     *
+     * @return A new recording Quarantine.
+     */
+    static Quarantine recording() {
+        return new Quarantine(null, new ArrayList<>());
+    }
+
+    /**
+     * Records a rejected line. A failure to write the side file is reported by {@link #close()},
+     * so readers can reject lines without handling I/O errors.
+     *
+     * @param source The name of the file the line comes from.
+     * @param line The number of the line in its file, counting the header as line 1.
+     * @param reason The reason the line is rejected.
+     * @param text The content of the line.
+     */
+    public synchronized void reject(String source, long line, RejectReason reason, String text) {
+        counts[reason.ordinal()]++;
+        if (recorded != null) {
+            recorded.add(new Rejection(source, line, reason, text));
+        }
+        if (file == null || error != null) {
+            return;
+        }
+        try {
+            if (writer == null) {
+                File dir = file.getAbsoluteFile().getParentFile();
+                if (!dir.exists()) {
+                    dir.mkdirs();
+                }
+                writer = new CsvWriter(file);
+                writer.writeLine("Archivo;Lnea;Motivo;Contenido");
+            }
+            writer.write(source).separator()
+                  .write(line).separator()
+                  .write(reason.getDescription()).separator()
+                  .writeQuoted(text).endRow();
+        } catch (IOException e) {
+            error = e;
+        }
+    }
+
+    /**
+     * Returns the number of lines rejected for the given reason.
+     *
+     * @param reason The reason.
+     * @return The number of lines.
+     */
+    public synchronized long getCount(RejectReason reason) {
+        return counts[reason.ordinal()];
+    }
+
+    /**
+     * Returns the number of lines rejected for any reason.
+     *
+     * @return The number of lines.
+     */
+    public synchronized long getTotal() {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Returns the lines rejected so far by a recording quarantine, in the order they were
+     * rejected.
+     *
+     * @return The rejected lines; empty unless the quarantine was created by {@link #recording()}.
+     */
+    synchronized List<Rejection> getRejections() {
+        return recorded == null ? new ArrayList<>() : new ArrayList<>(recorded);
+    }
+
+    /**
+     * Records again lines rejected earlier, in the given order.
+     *
+     * @param rejections The rejected lines.
+     */
+    void replay(List<Rejection> rejections) {
+        for (Rejection rejection : rejections) {
+            reject(rejection.source, rejection.line, rejection.reason, rejection.text);
+        }
+    }
+
+    /**
+     * Closes the side file. When nothing was rejected, a side file left by an earlier run is
+     * deleted, so that it is not taken for the rejections of this one.
+     *
+     * @throws IOException If the side file could not be written or deleted.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            CsvWriter open = writer;
+            writer = null;
+            open.close();
+        } else if (file != null && error == null) {
+            Files.deleteIfExists(file.toPath());
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Returns a source that records the rejections of the named file.
+     *
+     * @param name The name of the file.
+     * @return A new source positioned before the first line of the file.
+     */
+    Source source(String name) {
+        return new Source(name);
+    }
+
+    /**
+     * The rejections of a single input file. It remembers how many lines of the file have
+     * been read, so a reader that scans the file piece by piece can number its lines.
+     *
+     * <p>A file read in pieces at the same time uses one {@link #part()} per piece. A part
+     * numbers its lines from the start of its piece and holds its rejections back; once the
+     * pieces are read, {@link #release} sends them on with the lines of the earlier pieces
+     * added, so they are numbered and ordered as if the file had been read in one go.</p>
+     */
+    final class Source {
+        private final String name;
+        private final List<Rejection> held;
+        private long line;
+
+        private Source(String name) {
+            this(name, null);
+        }
+
+        private Source(String name, List<Rejection> held) {
+            this.name = name;
+            this.held = held;
+        }
+
+        /**
+         * Returns a source for one piece of the same file, positioned before its first line.
+         */
+        Source part() {
+            return new Source(name, new ArrayList<>());
+        }
+
+        /**
+         * Sends the rejections held back by a part on to the quarantine.
+         *
+         * @param linesBefore The number of lines of the file before the part's piece.
+         */
+        void release(long linesBefore) {
+            for (Rejection rejection : held) {
+                Quarantine.this.reject(name, linesBefore + rejection.line, rejection.reason, rejection.text);
+            }
+            held.clear();
+        }
+
+        /**
+         * Returns the number of lines of the file read so far, including the header.
+         */
+        long getLine() {
+            return line;
+        }
+
+        void setLine(long line) {
+            this.line = line;
+        }
+
+        void reject(long line, RejectReason reason, String text) {
+            if (held != null) {
+                held.add(new Rejection(name, line, reason, text));
+            } else {
+                Quarantine.this.reject(name, line, reason, text);
+            }
+        }
+    }
+
+    /**
+     * A rejected line of an input file.
+     */
+    static final class Rejection {
+        final String source;
+        final long line;
+        final RejectReason reason;
+        final String text;
+
+        Rejection(String source, long line, RejectReason reason, String text) {
+            this.source = source;
+            this.line = line;
+            this.reason = reason;
+            this.text = text;
+        }
+
+        /**
+         * Writes the line number, reason and content of the line; the source is left to the
+         * caller, which may share it between many lines.
+         *
+         * @param out The stream to write to.
+         * @throws IOException If an I/O error occurs.
+         */
+        void write(DataOutputStream out) throws IOException {
+            // Not writeUTF, which cannot hold a malformed line longer than 64 KB
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            out.writeLong(line);
+            out.writeByte(reason.ordinal());
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        /**
+         * Reads a line written by {@link #write}.
+         *
+         * @param source The name of the file the line comes from.
+         * @param in The stream to read from.
+         * @return The rejected line.
+         * @throws IOException If an I/O error occurs or the data is not a rejected line.
+         */
+        static Rejection read(String source, DataInputStream in) throws IOException {
+            RejectReason[] reasons = RejectReason.values();
+            long line = in.readLong();
+            int reason = in.readUnsignedByte();
+            int length = in.readInt();
+            if (reason >= reasons.length || length < 0) {
+                throw new IOException("Lnea rechazada invlida en " + source);
+            }
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            return new Rejection(source, line, reasons[reason], new String(bytes, StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package sales.report.processor;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The QueryServer class serves the queries of a {@link SalesQueryService} over HTTP on the
+ * loopback interface, so only local clients can reach it. The path names the query and the
+ * query string holds its parameters, for example
+ * {@code GET http://localhost:8080/vendedores?tipo=CC&top=10}. Results are returned as CSV in
+ * the platform charset, like the report files; invalid queries get a 400 response and
+ * queries made before the first data load a 503.
+ */
+public class QueryServer implements AutoCloseable {
+    private static final int THREADS = 4;
+
+    private final SalesQueryService queries;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Starts a QueryServer on the given port of the loopback interface.
+     *
+     * @param queries The service that answers the queries.
+     * @param port The port to listen on.
+     * @throws IOException If the server cannot be started.
+     */
+    public QueryServer(SalesQueryService queries, int port) throws IOException {
+        this.queries = queries;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = Executors.newFixedThreadPool(THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "consultas-http");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return The port.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                send(exchange, 405, "Mtodo no permitido: " + exchange.getRequestMethod(), "text/plain");
+                return;
+            }
+            String rawQuery = exchange.getRequestURI().getRawQuery();
+            String query = exchange.getRequestURI().getPath().substring(1) + (rawQuery == null ? "" : "?" + rawQuery);
+            try {
+                send(exchange, 200, queries.query(query), "text/csv");
+            } catch (IllegalArgumentException e) {
+                send(exchange, 400, e.getMessage(), "text/plain");
+            } catch (IllegalStateException e) {
+                send(exchange, 503, e.getMessage(), "text/plain");
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String text, String contentType) throws IOException {
+        Charset charset = Charset.defaultCharset();
+        byte[] body = text.getBytes(charset);
+        exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=" + charset.name());
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Stops the server and its worker threads.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdown();
+    }
+}
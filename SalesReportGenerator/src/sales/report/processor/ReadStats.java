@@ -0,0 +1,77 @@
+package sales.report.processor;
+
+/**
+ * The ReadStats class counts what the readers see while reading input files: bytes, data
+ * lines (header lines excluded) and lines rejected because they could not be read. It is not
+ * thread-safe; parallel readers keep their own instance and add it to a shared one when done.
+ */
+public class ReadStats {
+    private long bytes;
+    private long lines;
+    private long rejected;
+
+    /**
+     * Adds to the number of bytes read.
+     *
+     * @param count The number of bytes.
+     */
+    public void addBytes(long count) {
+        bytes += count;
+    }
+
+    /**
+     * Adds to the number of data lines read, including rejected ones.
+     *
+     * @param count The number of lines.
+     */
+    public void addLines(long count) {
+        lines += count;
+    }
+
+    /**
+     * Adds to the number of lines rejected.
+     *
+     * @param count The number of lines.
+     */
+    public void addRejected(long count) {
+        rejected += count;
+    }
+
+    /**
+     * Adds every counter of another instance to this one.
+     *
+     * @param other The counters to add.
+     */
+    public void add(ReadStats other) {
+        bytes += other.bytes;
+        lines += other.lines;
+        rejected += other.rejected;
+    }
+
+    /**
+     * Returns the number of bytes read.
+     *
+     * @return The number of bytes.
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the number of data lines read, including rejected ones.
+     *
+     * @return The number of lines.
+     */
+    public long getLines() {
+        return lines;
+    }
+
+    /**
+     * Returns the number of lines rejected.
+     *
+     * @return The number of lines.
+     */
+    public long getRejected() {
+        return rejected;
+    }
+}
@@ -0,0 +1,30 @@
+package sales.report.processor;
+
+/**
+ * The reasons why an input line is rejected and sent to the {@link Quarantine}.
+ */
+public enum RejectReason {
+    /** The line does not have the number of fields its file requires. */
+    FIELD_COUNT("Nmero de campos incorrecto"),
+    /** A numeric field is empty, is not a number or does not fit its type. */
+    INVALID_NUMBER("Nmero invlido"),
+    /** The sale names a seller that is not in the sellers file. */
+    UNKNOWN_SELLER("Vendedor desconocido"),
+    /** The sale names a product that is not in the products file. */
+    UNKNOWN_PRODUCT("Producto desconocido");
+
+    private final String description;
+
+    RejectReason(String description) {
+        this.description = description;
+    }
+
+    /**
+     * Returns the description written to the quarantine file.
+     *
+     * @return A short description of the reason.
+     */
+    public String getDescription() {
+        return description;
+    }
+}
@@ -1,90 +1,372 @@
 package sales.report.processor;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import sales.report.model.Product;
 import sales.report.model.Seller;
+import sales.report.model.SellerStore;
 import sales.util.Constants;
+import sales.util.CsvWriter;
+import sales.util.Money;
 
 public class ReportGenerator {
+    private static final String SELLERS_HEADER = "TipoDocumento;NmeroDocumento;NombreCompleto;TotalVentas";
+    private static final String PRODUCTS_HEADER = "NombreProducto;CantidadVendida;PrecioPromedio";
+    private static final Comparator<Seller> BY_TOTAL_SALES =
+        Comparator.comparingLong(Seller::getTotalSalesCents).reversed();
+    // Ties are broken by name, so the ranking does not depend on how the products were grouped
+    private static final Comparator<ProductSummary> BY_TOTAL_QUANTITY =
+        Comparator.comparingLong(ProductSummary::getTotalQuantity).reversed().thenComparing(ProductSummary::getName);
+
     public static void generateSellersReport(List<Seller> sellers, String fileName) throws IOException {
-        sellers.sort(Comparator.comparingDouble(Seller::getTotalSales).reversed());
+        generateSellersReport(sellers, fileName, 0);
+    }
+
+    public static void generateSellersReport(SellerStore store, String fileName) throws IOException {
+        try (CsvWriter writer = openReport(fileName)) {
+            writeSellers(writer, store);
+        }
+    }
+
+    // Ranks the sellers of a store by sorting their slots on the totals column, so no Seller
+    // object is created; ties keep slot order, as with the stable sort of a list. Writes them,
+    // header included, to an open writer
+    public static void writeSellers(CsvWriter writer, SellerStore store) throws IOException {
+        int[] slots = new int[store.size()];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = i;
+        }
+        sortByTotalSales(slots, new int[slots.length], 0, slots.length, store);
+
+        writer.writeLine(SELLERS_HEADER);
+        for (int slot : slots) {
+            writeSellerRow(writer, store.getDocumentType(slot), store.getDocumentNumber(slot),
+                           store.getFirstName(slot), store.getLastName(slot), store.getTotalSalesCents(slot));
+        }
+    }
+
+    // Stable merge sort of slots[from, to) by descending total sales
+    static void sortByTotalSales(int[] slots, int[] buffer, int from, int to, SellerStore store) {
+        if (to - from < 2) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        sortByTotalSales(slots, buffer, from, mid, store);
+        sortByTotalSales(slots, buffer, mid, to, store);
+        if (store.getTotalSalesCents(slots[mid - 1]) >= store.getTotalSalesCents(slots[mid])) {
+            return; // Already in order
+        }
+        System.arraycopy(slots, from, buffer, from, to - from);
+        int left = from;
+        int right = mid;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < mid && store.getTotalSalesCents(buffer[left]) >= store.getTotalSalesCents(buffer[right]))) {
+                slots[i] = buffer[left++];
+            } else {
+                slots[i] = buffer[right++];
+            }
+        }
+    }
+
+    // Writes only the 'limit' best sellers, selected with a bounded heap instead of a full sort,
+    // or every seller if 'limit' is 0
+    public static void generateSellersReport(List<Seller> sellers, String fileName, int limit) throws IOException {
+        try (CsvWriter writer = openReport(fileName)) {
+            writeSellers(writer, sellers, limit);
+        }
+    }
+
+    // Filtered report: only the sellers whose positions are set in 'selected', such as those picked
+    // by a CatalogIndex; the others are never visited
+    public static void generateSellersReport(List<Seller> sellers, BitSet selected, String fileName) throws IOException {
+        generateSellersReport(select(sellers, selected), fileName);
+    }
+
+    public static void generateSellersReport(List<Seller> sellers, BitSet selected, String fileName, int limit) throws IOException {
+        generateSellersReport(select(sellers, selected), fileName, limit);
+    }
+
+    // Gathers the items whose positions are set, in list order
+    static <T> List<T> select(List<T> items, BitSet selected) {
+        List<T> result = new ArrayList<>(selected.cardinality());
+        for (int i = selected.nextSetBit(0); i >= 0; i = selected.nextSetBit(i + 1)) {
+            result.add(items.get(i));
+        }
+        return result;
+    }
+
+    // Ranks the sellers of a store with an external merge sort whose buffer holds at most 'budget'
+    // slots; the report is the same as the one written by the in-memory sort. The runs are written
+    // from the store's columns, so the sellers never live on the heap as objects
+    public static void generateSellersReportExternally(SellerStore store, String fileName, int budget) throws IOException {
+        try (ExternalSellerSorter sorter = new ExternalSellerSorter(store, budget, null)) {
+            for (int slot = 0; slot < store.size(); slot++) {
+                sorter.add(slot);
+            }
+            try (CsvWriter writer = openSellersReport(fileName)) {
+                sorter.forEachSorted(seller -> writeSellerRow(writer, seller));
+            }
+        }
+    }
+
+    // Writes the sellers report header and one row per seller, in the given order, to an open writer
+    public static void writeSellerRows(CsvWriter writer, Iterable<Seller> sellers) throws IOException {
+        writer.writeLine(SELLERS_HEADER);
+        for (Seller seller : sellers) {
+            writeSellerRow(writer, seller);
+        }
+    }
+
+    private static CsvWriter openSellersReport(String fileName) throws IOException {
+        return openReport(fileName, SELLERS_HEADER);
+    }
 
+    private static CsvWriter openReport(String fileName) throws IOException {
         File reportsDir = new File(Constants.REPORTS_DIRECTORY);
         if (!reportsDir.exists()) {
             reportsDir.mkdir();
         }
+        return new CsvWriter(new File(reportsDir, fileName));
+    }
+
+    private static CsvWriter openReport(String fileName, String header) throws IOException {
+        CsvWriter writer = openReport(fileName);
+        try {
+            writer.writeLine(header);
+        } catch (IOException e) {
+            try {
+                writer.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        return writer;
+    }
+
+    private static void writeSellerRow(CsvWriter writer, Seller seller) throws IOException {
+        writeSellerRow(writer, seller.getDocumentType(), seller.getDocumentNumber(),
+                       seller.getFirstName(), seller.getLastName(), seller.getTotalSalesCents());
+    }
+
+    private static void writeSellerRow(CsvWriter writer, String documentType, long documentNumber,
+                                       String firstName, String lastName, long totalSalesCents) throws IOException {
+        writer.write(documentType).separator()
+              .write(documentNumber).separator()
+              .write(firstName).write(' ').write(lastName).separator()
+              .writeCents(totalSalesCents).endRow();
+    }
 
-        try (PrintWriter writer = new PrintWriter(new FileWriter(new File(reportsDir, fileName)))) {
-            writer.println("TipoDocumento;NmeroDocumento;NombreCompleto;TotalVentas");
-            for (Seller seller : sellers) {
-                writer.printf("%s;%d;%s;%.2f%n", 
-                    seller.getDocumentType(), seller.getDocumentNumber(),
-                    seller.getFullName(), seller.getTotalSales());
+    // Writes how much of each product every seller sold: sellers in list order, then products in list order
+    public static void generateSellerProductReport(SalesCube cube, List<Product> products, String fileName) throws IOException {
+        try (CsvWriter writer = openReport(fileName,
+                "TipoDocumento;NmeroDocumento;NombreCompleto;IDProducto;NombreProducto;CantidadVendida;TotalVentas")) {
+            for (int row = 0; row < cube.getRowCount(); row++) {
+                Seller seller = cube.getSeller(row);
+                for (int cell = cube.getRowStart(row); cell < cube.getRowStart(row + 1); cell++) {
+                    Product product = products.get(cube.getColumn(cell));
+                    writeSellerColumns(writer, seller);
+                    writer.write(product.getId()).separator()
+                          .write(product.getName()).separator()
+                          .write(cube.getQuantity(cell)).separator()
+                          .writeCents(cube.getSalesCents(cell)).endRow();
+                }
             }
         }
     }
 
+    // Rolls the cube up to product names and writes how much of each name every seller sold;
+    // names are listed in the order they first appear in the products list
+    public static void generateSellerProductNameReport(SalesCube cube, List<Product> products, String fileName) throws IOException {
+        Map<String, Integer> groups = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        int[] groupOf = new int[products.size()];
+        for (int column = 0; column < groupOf.length; column++) {
+            String name = products.get(column).getName();
+            Integer group = groups.get(name);
+            if (group == null) {
+                group = names.size();
+                groups.put(name, group);
+                names.add(name);
+            }
+            groupOf[column] = group;
+        }
+        SalesCube byName = cube.rollUp(groupOf, names.size());
+
+        try (CsvWriter writer = openReport(fileName,
+                "TipoDocumento;NmeroDocumento;NombreCompleto;NombreProducto;CantidadVendida;TotalVentas")) {
+            for (int row = 0; row < byName.getRowCount(); row++) {
+                Seller seller = byName.getSeller(row);
+                for (int cell = byName.getRowStart(row); cell < byName.getRowStart(row + 1); cell++) {
+                    writeSellerColumns(writer, seller);
+                    writer.write(names.get(byName.getColumn(cell))).separator()
+                          .write(byName.getQuantity(cell)).separator()
+                          .writeCents(byName.getSalesCents(cell)).endRow();
+                }
+            }
+        }
+    }
+
+    private static void writeSellerColumns(CsvWriter writer, Seller seller) throws IOException {
+        writer.write(seller.getDocumentType()).separator()
+              .write(seller.getDocumentNumber()).separator()
+              .write(seller.getFirstName()).write(' ').write(seller.getLastName()).separator();
+    }
+
     public static void generateProductsReport(List<Product> products, String fileName) throws IOException {
+        List<ProductSummary> summaries = summarize(products);
+        summaries.sort(BY_TOTAL_QUANTITY);
+        writeProductsReport(summaries, fileName);
+    }
+
+    // Writes only the 'limit' best-selling products, selected with a bounded heap instead of a full sort
+    public static void generateProductsReport(List<Product> products, String fileName, int limit) throws IOException {
+        writeProductsReport(TopK.select(summarize(products), limit, BY_TOTAL_QUANTITY), fileName);
+    }
+
+    // Filtered report: only the products whose positions are set in 'selected'
+    public static void generateProductsReport(List<Product> products, BitSet selected, String fileName) throws IOException {
+        generateProductsReport(select(products, selected), fileName);
+    }
+
+    public static void generateProductsReport(List<Product> products, BitSet selected, String fileName, int limit) throws IOException {
+        generateProductsReport(select(products, selected), fileName, limit);
+    }
+
+    // Groups the products by name; products that were never sold are left out
+    private static List<ProductSummary> summarize(List<Product> products) {
+        List<ProductSummary> summaries = summarizeByCode(products);
+        return summaries != null ? summaries : summarizeByName(products);
+    }
+
+    // Groups the products by name code with arrays indexed by code. Returns null if some product
+    // has no code or the codes do not come from a single dictionary, so grouping must hash the names.
+    private static List<ProductSummary> summarizeByCode(List<Product> products) {
+        int codes = 0;
+        for (Product product : products) {
+            if (product.getNameCode() < 0) {
+                return null;
+            }
+            codes = Math.max(codes, product.getNameCode() + 1);
+        }
+
+        String[] names = new String[codes];
+        long[] quantities = new long[codes];
+        long[] salesCents = new long[codes];
+        for (Product product : products) {
+            int code = product.getNameCode();
+            if (names[code] == null) {
+                names[code] = product.getName();
+            } else if (!names[code].equals(product.getName())) {
+                return null;
+            }
+            quantities[code] = Math.addExact(quantities[code], product.getSoldQuantity());
+            salesCents[code] = Money.add(salesCents[code], Money.multiply(product.getPriceCents(), product.getSoldQuantity()));
+        }
+
+        List<ProductSummary> summaries = new ArrayList<>();
+        for (int code = 0; code < codes; code++) {
+            if (quantities[code] > 0) {
+                summaries.add(new ProductSummary(names[code], quantities[code], salesCents[code]));
+            }
+        }
+        return summaries;
+    }
+
+    private static List<ProductSummary> summarizeByName(List<Product> products) {
         Map<String, ProductSummary> productSummaries = new HashMap<>();
 
         for (Product product : products) {
             productSummaries.computeIfAbsent(product.getName(), k -> new ProductSummary(k))
-                            .addSale(product.getSoldQuantity(), product.getPrice());
+                            .addSale(product.getSoldQuantity(), product.getPriceCents());
         }
 
-        List<ProductSummary> summaries = new ArrayList<>(productSummaries.values());
-        summaries.sort(Comparator.comparingInt(ProductSummary::getTotalQuantity).reversed());
+        List<ProductSummary> summaries = new ArrayList<>(productSummaries.size());
+        for (ProductSummary summary : productSummaries.values()) {
+            if (summary.getTotalQuantity() > 0) {
+                summaries.add(summary);
+            }
+        }
+        return summaries;
+    }
 
-        File reportsDir = new File(Constants.REPORTS_DIRECTORY);
-        if (!reportsDir.exists()) {
-            reportsDir.mkdir();
+    private static void writeProductsReport(List<ProductSummary> summaries, String fileName) throws IOException {
+        try (CsvWriter writer = openReport(fileName, PRODUCTS_HEADER)) {
+            writeProductRows(writer, summaries);
         }
+    }
 
-        try (PrintWriter writer = new PrintWriter(new FileWriter(new File(reportsDir, fileName)))) {
-            writer.println("NombreProducto;CantidadVendida;PrecioPromedio");
-            for (ProductSummary summary : summaries) {
-                if (summary.getTotalQuantity() > 0) {
-                    writer.printf("%s;%d;%.2f%n", 
-                        summary.getName(), summary.getTotalQuantity(), summary.getAveragePrice());
-                }
-            }
+    private static void writeProductRows(CsvWriter writer, List<ProductSummary> summaries) throws IOException {
+        for (ProductSummary summary : summaries) {
+            writer.write(summary.getName()).separator()
+                  .write(summary.getTotalQuantity()).separator()
+                  .writeCents(summary.getAveragePriceCents()).endRow();
+        }
+    }
+
+    // Ranks the sellers as the sellers report does and writes them, header included, to an open
+    // writer; a positive limit keeps only the best ones. Used by the reports and the query results
+    public static void writeSellers(CsvWriter writer, List<Seller> sellers, int limit) throws IOException {
+        List<Seller> ranked;
+        if (limit > 0) {
+            ranked = TopK.select(sellers, limit, BY_TOTAL_SALES);
+        } else {
+            ranked = new ArrayList<>(sellers);
+            ranked.sort(BY_TOTAL_SALES);
         }
+        writeSellerRows(writer, ranked);
+    }
+
+    // Query results: groups the products by name as the products report does, keeps the names that
+    // sold at least 'minQuantity' units and writes them ranked, header included, to an open writer
+    static void writeProducts(CsvWriter writer, List<Product> products, int minQuantity, int limit) throws IOException {
+        List<ProductSummary> summaries = summarize(products);
+        summaries.removeIf(summary -> summary.getTotalQuantity() < minQuantity);
+        if (limit > 0) {
+            summaries = TopK.select(summaries, limit, BY_TOTAL_QUANTITY);
+        } else {
+            summaries.sort(BY_TOTAL_QUANTITY);
+        }
+        writer.writeLine(PRODUCTS_HEADER);
+        writeProductRows(writer, summaries);
     }
 
     private static class ProductSummary {
         private String name;
-        private int totalQuantity;
-        private double totalSales;
+        private long totalQuantity;
+        private long totalSalesCents;
 
         public ProductSummary(String name) {
+            this(name, 0, 0);
+        }
+
+        public ProductSummary(String name, long totalQuantity, long totalSalesCents) {
             this.name = name;
-            this.totalQuantity = 0;
-            this.totalSales = 0;
+            this.totalQuantity = totalQuantity;
+            this.totalSalesCents = totalSalesCents;
         }
 
-        public void addSale(int quantity, double price) {
-            this.totalQuantity += quantity;
-            this.totalSales += quantity * price;
+        public void addSale(long quantity, long priceCents) {
+            this.totalQuantity = Math.addExact(totalQuantity, quantity);
+            this.totalSalesCents = Money.add(totalSalesCents, Money.multiply(priceCents, quantity));
         }
 
         public String getName() {
             return name;
         }
 
-        public int getTotalQuantity() {
+        public long getTotalQuantity() {
             return totalQuantity;
         }
 
-        public double getAveragePrice() {
-            return totalQuantity > 0 ? totalSales / totalQuantity : 0;
+        public long getAveragePriceCents() {
+            return totalQuantity > 0 ? Money.divide(totalSalesCents, totalQuantity) : 0;
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package sales.report.processor;
+
+/**
+ * The SaleFilter interface decides whether a sale can be aggregated before it is kept, so
+ * that a {@link SalesSnapshot}, which tallies sales now and aggregates them later, can reject
+ * them while it still knows the line each one came from.
+ */
+@FunctionalInterface
+public interface SaleFilter {
+
+    /**
+     * Checks a single sale record.
+     *
+     * @param sellerDocumentNumber The document number of the seller involved in the sale.
+     * @param productId The ID of the product sold.
+     * @param quantity The quantity of the product sold.
+     * @return null if the sale is accepted, otherwise the reason it is rejected.
+     */
+    RejectReason check(long sellerDocumentNumber, int productId, int quantity);
+}
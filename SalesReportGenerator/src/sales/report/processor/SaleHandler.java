@@ -0,0 +1,33 @@
+package sales.report.processor;
+
+/**
+ * The SaleHandler interface receives sales one at a time as they are read from the
+ * sales files, so that they can be aggregated without building a list of Sale objects.
+ */
+@FunctionalInterface
+public interface SaleHandler {
+
+    /**
+     * Handles a single sale record.
+     *
+     * @param sellerDocumentNumber The document number of the seller involved in the sale.
+     * @param productId The ID of the product sold.
+     * @param quantity The quantity of the product sold.
+     */
+    void onSale(long sellerDocumentNumber, int productId, int quantity);
+
+    /**
+     * Handles a single sale record unless it cannot be used, in which case the reader sends
+     * the line to its {@link Quarantine}. Handlers that can refuse sales override this method
+     * so that a sale is checked and handled in a single step; the default accepts every sale.
+     *
+     * @param sellerDocumentNumber The document number of the seller involved in the sale.
+     * @param productId The ID of the product sold.
+     * @param quantity The quantity of the product sold.
+     * @return null if the sale was handled, otherwise the reason it was refused.
+     */
+    default RejectReason offerSale(long sellerDocumentNumber, int productId, int quantity) {
+        onSale(sellerDocumentNumber, productId, quantity);
+        return null;
+    }
+}
@@ -0,0 +1,117 @@
+package sales.report.processor;
+
+import java.util.List;
+import sales.report.model.Product;
+import sales.report.model.Seller;
+import sales.util.Money;
+
+/**
+ * The SalesAggregator class accumulates sales into the sellers' total sales and the
+ * products' sold quantities as they are read. Sellers and products are resolved through
+ * indexes built once, so memory stays bounded by the number of sellers and products
+ * rather than by the number of sales.
+ */
+public class SalesAggregator implements Aggregator {
+    private final SellerIndex sellerIndex;
+    private final ProductIndex productIndex;
+
+    /**
+     * Constructs a SalesAggregator over the given sellers and products.
+     *
+     * @param sellers A list of sellers.
+     * @param products A list of products.
+     */
+    public SalesAggregator(List<Seller> sellers, List<Product> products) {
+        this.sellerIndex = new SellerIndex(sellers);
+        this.productIndex = new ProductIndex(products);
+    }
+
+    /**
+     * Associates the sale with its seller and product, updating the seller's total sales
+     * and the product's sold quantity. Sales with an unknown seller or product are ignored;
+     * {@link #offerSale} reports them instead.
+     *
+     * @param sellerDocumentNumber The document number of the seller involved in the sale.
+     * @param productId The ID of the product sold.
+     * @param quantity The quantity of the product sold.
+     */
+    @Override
+    public void onSale(long sellerDocumentNumber, int productId, int quantity) {
+        offerSale(sellerDocumentNumber, productId, quantity);
+    }
+
+    @Override
+    public RejectReason offerSale(long sellerDocumentNumber, int productId, int quantity) {
+        Seller seller = sellerIndex.find(sellerDocumentNumber);
+        if (seller == null) {
+            return RejectReason.UNKNOWN_SELLER;
+        }
+        Product product = productIndex.find(productId);
+        if (product == null) {
+            return RejectReason.UNKNOWN_PRODUCT;
+        }
+        seller.addSale(Money.multiply(product.getPriceCents(), quantity));
+        product.incrementSoldQuantity(quantity);
+        return null;
+    }
+
+    @Override
+    public RejectReason check(long sellerDocumentNumber, int productId, int quantity) {
+        if (sellerIndex.slotOf(sellerDocumentNumber) < 0) {
+            return RejectReason.UNKNOWN_SELLER;
+        }
+        return productIndex.slotOf(productId) < 0 ? RejectReason.UNKNOWN_PRODUCT : null;
+    }
+
+    /**
+     * Adds every cell of a tally to the sellers' total sales and the products' sold quantities.
+     * Cells of unknown sellers or products are left out, as {@link Aggregator#apply} describes.
+     *
+     * @param tally The tally to add.
+     */
+    @Override
+    public void apply(SalesTally tally) {
+        tally.forEach((sellerDocumentNumber, productId, quantity) -> {
+            Seller seller = sellerIndex.find(sellerDocumentNumber);
+            Product product = productIndex.find(productId);
+            if (seller != null && product != null) {
+                seller.addSale(Money.multiply(product.getPriceCents(), quantity));
+                product.incrementSoldQuantity(quantity);
+            }
+        });
+    }
+
+    @Override
+    public PartialTotals newPartial() {
+        return new PartialTotals(new PartialTotals.Slots() {
+            @Override
+            public int sellerSlotOf(long documentNumber) {
+                return sellerIndex.slotOf(documentNumber);
+            }
+
+            @Override
+            public int productSlotOf(int productId) {
+                return productIndex.slotOf(productId);
+            }
+
+            @Override
+            public long getPriceCents(int productSlot) {
+                return productIndex.get(productSlot).getPriceCents();
+            }
+        }, sellerIndex.size(), productIndex.size());
+    }
+
+    @Override
+    public void addPartial(PartialTotals partial) {
+        for (int slot = 0; slot < partial.salesCents.length; slot++) {
+            if (partial.salesCents[slot] != 0) {
+                sellerIndex.get(slot).addSale(partial.salesCents[slot]);
+            }
+        }
+        for (int slot = 0; slot < partial.soldQuantities.length; slot++) {
+            if (partial.soldQuantities[slot] != 0) {
+                productIndex.get(slot).incrementSoldQuantity(partial.soldQuantities[slot]);
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package sales.report.processor;
+
+import java.util.Arrays;
+import java.util.List;
+import sales.report.model.Product;
+import sales.report.model.Seller;
+import sales.util.Money;
+
+/**
+ * The SalesCube class holds how much of each product every seller sold, in compressed sparse
+ * row form: the non-empty cells of each seller are stored together, sorted by column, and a
+ * row index tells where each seller's cells start. Only cells with sales take space, so memory
+ * is proportional to the number of (seller, product) pairs that were sold rather than to the
+ * number of sellers times the number of products.
+ *
+ * <p>Rows are the sellers in list order. The columns of a cube built with
+ * {@link #of(SalesTally, List, List)} are the products in list order; {@link #rollUp} groups
+ * columns together, for example products that share a name. Each cell keeps both the quantity
+ * sold and its amount, since the products in a group may have different prices.</p>
+ */
+public class SalesCube {
+    private final List<Seller> sellers;
+    private final int[] rowStart;
+    private final int[] columns;
+    private final long[] quantities;
+    private final long[] salesCents;
+
+    private SalesCube(List<Seller> sellers, int[] rowStart, int[] columns, long[] quantities, long[] salesCents) {
+        this.sellers = sellers;
+        this.rowStart = rowStart;
+        this.columns = columns;
+        this.quantities = quantities;
+        this.salesCents = salesCents;
+    }
+
+    /**
+     * Builds the seller by product cube of a tally. Cells of unknown sellers or products, and
+     * cells whose quantity adds up to zero, are left out.
+     *
+     * @param tally The quantities sold by each seller of each product.
+     * @param sellers The sellers, which become the rows.
+     * @param products The products, which become the columns.
+     * @return A new SalesCube.
+     * @throws ArithmeticException If an amount overflows.
+     */
+    public static SalesCube of(SalesTally tally, List<Seller> sellers, List<Product> products) {
+        SellerIndex sellerIndex = new SellerIndex(sellers);
+        ProductIndex productIndex = new ProductIndex(products);
+
+        // Resolve the cells once, counting them per product
+        int size = tally.size();
+        int[] cellRows = new int[size];
+        int[] cellColumns = new int[size];
+        long[] cellQuantities = new long[size];
+        int[] columnStart = new int[products.size() + 1];
+        int[] count = {0};
+        tally.forEach((sellerDocumentNumber, productId, quantity) -> {
+            int row = sellerIndex.slotOf(sellerDocumentNumber);
+            int column = productIndex.slotOf(productId);
+            if (row >= 0 && column >= 0 && quantity != 0) {
+                int cell = count[0]++;
+                cellRows[cell] = row;
+                cellColumns[cell] = column;
+                cellQuantities[cell] = quantity;
+                columnStart[column + 1]++;
+            }
+        });
+        int cells = count[0];
+
+        // Two counting sorts: by column, then stably by row, so every row ends up sorted by column
+        for (int column = 0; column < products.size(); column++) {
+            columnStart[column + 1] += columnStart[column];
+        }
+        int[] byColumn = new int[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            byColumn[columnStart[cellColumns[cell]]++] = cell;
+        }
+        int[] rowStart = new int[sellers.size() + 1];
+        for (int cell = 0; cell < cells; cell++) {
+            rowStart[cellRows[cell] + 1]++;
+        }
+        for (int row = 0; row < sellers.size(); row++) {
+            rowStart[row + 1] += rowStart[row];
+        }
+        int[] next = Arrays.copyOf(rowStart, sellers.size());
+        int[] columns = new int[cells];
+        long[] quantities = new long[cells];
+        long[] salesCents = new long[cells];
+        for (int cell : byColumn) {
+            int position = next[cellRows[cell]]++;
+            columns[position] = cellColumns[cell];
+            quantities[position] = cellQuantities[cell];
+            salesCents[position] = Money.multiply(productIndex.get(cellColumns[cell]).getPriceCents(), cellQuantities[cell]);
+        }
+        return new SalesCube(sellers, rowStart, columns, quantities, salesCents);
+    }
+
+    /**
+     * Returns a cube with the same rows whose columns are groups of this cube's columns. The
+     * cells of a row that fall in the same group are added up.
+     *
+     * @param groupOf The group of each column of this cube, from 0 to {@code groups - 1}.
+     * @param groups The number of groups.
+     * @return A new SalesCube whose columns are the groups.
+     * @throws ArithmeticException If an amount overflows.
+     */
+    public SalesCube rollUp(int[] groupOf, int groups) {
+        int[] newRowStart = new int[rowStart.length];
+        int[] newColumns = new int[columns.length];
+        long[] newQuantities = new long[columns.length];
+        long[] newSalesCents = new long[columns.length];
+        // Dense accumulators for one row at a time; only the groups it touches are reset
+        long[] groupQuantities = new long[groups];
+        long[] groupSalesCents = new long[groups];
+        boolean[] touched = new boolean[groups];
+        int[] rowGroups = new int[groups];
+        int size = 0;
+        for (int row = 0; row + 1 < rowStart.length; row++) {
+            int touchedCount = 0;
+            for (int cell = rowStart[row]; cell < rowStart[row + 1]; cell++) {
+                int group = groupOf[columns[cell]];
+                if (!touched[group]) {
+                    touched[group] = true;
+                    rowGroups[touchedCount++] = group;
+                }
+                groupQuantities[group] += quantities[cell];
+                groupSalesCents[group] = Money.add(groupSalesCents[group], salesCents[cell]);
+            }
+            Arrays.sort(rowGroups, 0, touchedCount);
+            for (int i = 0; i < touchedCount; i++) {
+                int group = rowGroups[i];
+                newColumns[size] = group;
+                newQuantities[size] = groupQuantities[group];
+                newSalesCents[size] = groupSalesCents[group];
+                size++;
+                touched[group] = false;
+                groupQuantities[group] = 0;
+                groupSalesCents[group] = 0;
+            }
+            newRowStart[row + 1] = size;
+        }
+        return new SalesCube(sellers, newRowStart,
+                Arrays.copyOf(newColumns, size), Arrays.copyOf(newQuantities, size), Arrays.copyOf(newSalesCents, size));
+    }
+
+    /**
+     * Returns the number of rows, one per seller.
+     *
+     * @return The row count.
+     */
+    public int getRowCount() {
+        return rowStart.length - 1;
+    }
+
+    /**
+     * Returns the number of non-empty cells.
+     *
+     * @return The cell count.
+     */
+    public int getCellCount() {
+        return columns.length;
+    }
+
+    /**
+     * Returns the seller of a row.
+     *
+     * @param row The row.
+     * @return The Seller object.
+     */
+    public Seller getSeller(int row) {
+        return sellers.get(row);
+    }
+
+    /**
+     * Returns the first cell of a row; the row's cells run up to the first cell of the next row.
+     *
+     * @param row The row, or the row count for the end of the last row.
+     * @return The index of the cell.
+     */
+    public int getRowStart(int row) {
+        return rowStart[row];
+    }
+
+    public int getColumn(int cell) {
+        return columns[cell];
+    }
+
+    public long getQuantity(int cell) {
+        return quantities[cell];
+    }
+
+    public long getSalesCents(int cell) {
+        return salesCents[cell];
+    }
+}
@@ -0,0 +1,384 @@
+package sales.report.processor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import sales.util.InputCodecs;
+
+/**
+ * The SalesFileParser class parses Vendedor_*.txt files directly from their bytes. Each file
+ * is memory-mapped and scanned for ';' and '\n'; the seller document number, product ID and
+ * quantity are accumulated straight into primitives, so no String is created per line.
+ * Files larger than the mapping window are mapped piece by piece, each piece ending on a
+ * line boundary.
+ *
+ * <p>Compressed files, such as Vendedor_*.txt.gz, are streamed through their
+ * {@link InputCodecs codec} instead: the decoded bytes arrive in a buffer that is parsed up to
+ * its last complete line, and the partial line left over is carried to the front of the
+ * buffer before the next read. Decoding runs on its own thread, ahead of the parsing.</p>
+ *
+ * <p>Lines that cannot be used are sent to a {@link Quarantine} instead of stopping the run.
+ * Invalid numbers are detected while the digits are accumulated and reported with a sentinel
+ * value rather than an exception, so checking a valid line costs no more than parsing it.</p>
+ */
+public class SalesFileParser {
+    /** Largest region a single MappedByteBuffer can cover. */
+    static final long MAX_WINDOW = Integer.MAX_VALUE;
+    /** Files below this size are read into the heap, where mapping would cost more than it saves. */
+    private static final long MAP_THRESHOLD = 64 * 1024;
+    /** Returned by {@link #parseNumber} for a field that is not a valid number. */
+    private static final long INVALID = Long.MIN_VALUE;
+    /** Initial size of the buffer compressed files are decoded into; it grows for longer lines. */
+    private static final int STREAM_BUFFER_SIZE = 256 * 1024;
+
+    private final long windowSize;
+
+    /**
+     * Constructs a SalesFileParser that maps files in the largest possible windows.
+     */
+    public SalesFileParser() {
+        this(MAX_WINDOW);
+    }
+
+    /**
+     * Constructs a SalesFileParser that maps files in windows of at most the given size.
+     *
+     * @param windowSize The maximum number of bytes mapped at once.
+     */
+    SalesFileParser(long windowSize) {
+        this.windowSize = Math.min(windowSize, MAX_WINDOW);
+    }
+
+    /**
+     * Parses a sales file, skipping its header line, and passes each sale to the handler.
+     * Lines that do not have exactly three numeric fields, and sales the handler refuses,
+     * are skipped.
+     *
+     * @param file The sales file to parse.
+     * @param handler The handler that receives each sale.
+     * @throws IOException If an I/O error occurs or a line does not fit in one window.
+     */
+    public void parse(Path file, SaleHandler handler) throws IOException {
+        parse(file, handler, new ReadStats());
+    }
+
+    /**
+     * Parses a sales file as {@link #parse(Path, SaleHandler)} does, counting the bytes,
+     * lines and skipped lines in the given statistics.
+     *
+     * @param file The sales file to parse.
+     * @param handler The handler that receives each sale.
+     * @param stats The statistics to add to.
+     * @throws IOException If an I/O error occurs or a line does not fit in one window.
+     */
+    public void parse(Path file, SaleHandler handler, ReadStats stats) throws IOException {
+        parse(file, handler, stats, Quarantine.counting());
+    }
+
+    /**
+     * Parses a sales file as {@link #parse(Path, SaleHandler, ReadStats)} does, sending the
+     * lines it skips to the given quarantine.
+     *
+     * @param file The sales file to parse.
+     * @param handler The handler that receives each sale.
+     * @param stats The statistics to add to.
+     * @param quarantine The quarantine that receives the rejected lines.
+     * @throws IOException If an I/O error occurs or a line does not fit in one window.
+     */
+    public void parse(Path file, SaleHandler handler, ReadStats stats, Quarantine quarantine) throws IOException {
+        Quarantine.Source source = quarantine.source(file.getFileName().toString());
+        if (InputCodecs.forFile(file.getFileName().toString()) != null) {
+            stats.addBytes(Files.size(file));
+            try (InputStream in = InputCodecs.open(file.toFile())) {
+                parseStream(in, handler, stats, source);
+            }
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            stats.addBytes(size);
+            if (size < MAP_THRESHOLD) {
+                ByteBuffer buffer = ByteBuffer.allocate((int) size);
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // Keep reading until the buffer is full
+                }
+                buffer.flip();
+                parseLines(buffer, 0, buffer.limit(), true, true, handler, stats, source);
+                return;
+            }
+
+            parseRange(channel, file, 0, size, handler, stats, source);
+        }
+    }
+
+    /**
+     * Splits a plain sales file into ranges of about the same size that start and end on
+     * line boundaries, so that they can be parsed independently with
+     * {@link #parseRange(Path, long, long, SaleHandler, ReadStats, Quarantine.Source)}.
+     *
+     * @param file The sales file, which must not be compressed.
+     * @param ranges The number of ranges wanted.
+     * @return The offsets of the ranges, each one the start of a range and the end of the
+     *         previous one, from 0 to the file size. There may be fewer ranges than asked
+     *         for when lines span the split points.
+     * @throws IOException If an I/O error occurs.
+     */
+    long[] split(Path file, int ranges) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long[] offsets = new long[ranges + 1];
+            int count = 1;
+            ByteBuffer probe = ByteBuffer.allocate(8192);
+            for (int k = 1; k < ranges; k++) {
+                long target = Math.max(size / ranges * k, offsets[count - 1]);
+                long boundary = nextLineStart(channel, target, size, probe);
+                if (boundary > offsets[count - 1] && boundary < size) {
+                    offsets[count++] = boundary;
+                }
+            }
+            offsets[count++] = size;
+            return Arrays.copyOf(offsets, count);
+        }
+    }
+
+    /**
+     * Returns the offset just past the first line terminator at or after the given offset,
+     * or the size of the file if there is none.
+     */
+    private static long nextLineStart(FileChannel channel, long from, long size, ByteBuffer probe) throws IOException {
+        long position = from;
+        while (position < size) {
+            probe.clear();
+            int n = channel.read(probe, position);
+            if (n <= 0) {
+                break;
+            }
+            for (int i = 0; i < n; i++) {
+                if (probe.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += n;
+        }
+        return size;
+    }
+
+    /**
+     * Parses the lines of one range of a plain sales file, as returned by {@link #split}.
+     * Only the range that starts the file skips the header line.
+     *
+     * @param file The sales file.
+     * @param start The offset of the first byte of the range.
+     * @param end The offset just past the last byte of the range.
+     * @param handler The handler that receives each sale.
+     * @param stats The statistics to add the range's bytes and lines to.
+     * @param source The quarantine source of the range, usually a {@link Quarantine.Source#part()}.
+     * @throws IOException If an I/O error occurs or a line does not fit in one window.
+     */
+    void parseRange(Path file, long start, long end, SaleHandler handler, ReadStats stats,
+                    Quarantine.Source source) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            stats.addBytes(end - start);
+            parseRange(channel, file, start, end, handler, stats, source);
+        }
+    }
+
+    private void parseRange(FileChannel channel, Path file, long start, long end, SaleHandler handler,
+                            ReadStats stats, Quarantine.Source source) throws IOException {
+        long position = start;
+        boolean header = start == 0;
+        while (position < end) {
+            long length = Math.min(windowSize, end - position);
+            boolean last = position + length == end;
+            ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            int consumed = parseLines(window, 0, (int) length, header, last, handler, stats, source);
+            if (consumed == 0 && !last) {
+                throw new IOException("Lnea demasiado larga en " + file + " cerca del byte " + position);
+            }
+            header = header && consumed == 0;
+            position += consumed;
+        }
+    }
+
+    /**
+     * Parses the decoded bytes of a compressed file, skipping its header line.
+     */
+    private void parseStream(InputStream in, SaleHandler handler, ReadStats stats,
+                             Quarantine.Source source) throws IOException {
+        byte[] bytes = new byte[STREAM_BUFFER_SIZE];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int length = 0;
+        boolean header = true;
+        while (true) {
+            if (length == bytes.length) {
+                // The carried-over line fills the buffer
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+                buffer = ByteBuffer.wrap(bytes);
+            }
+            int n = in.read(bytes, length, bytes.length - length);
+            boolean last = n < 0;
+            if (!last) {
+                length += n;
+            }
+            int consumed = parseLines(buffer, 0, length, header, last, handler, stats, source);
+            if (last) {
+                return;
+            }
+            header = header && consumed == 0;
+            System.arraycopy(bytes, consumed, bytes, 0, length - consumed);
+            length -= consumed;
+        }
+    }
+
+    /**
+     * Parses the complete lines in the given range of the buffer.
+     *
+     * @param buffer The buffer holding the file bytes.
+     * @param from The index of the first byte of the range.
+     * @param to The index just past the last byte of the range.
+     * @param skipFirst Whether the first line of the range is a header to skip.
+     * @param last Whether the range ends at the end of the file, so a final line without
+     *             a line terminator is complete.
+     * @param handler The handler that receives each sale.
+     * @param stats The statistics to add the parsed and skipped lines to.
+     * @param source The quarantine source of the file, positioned at the first line of the
+     *               range; it is advanced past the lines consumed.
+     * @return The number of bytes consumed, which ends just after the last complete line.
+     */
+    int parseLines(ByteBuffer buffer, int from, int to, boolean skipFirst, boolean last, SaleHandler handler,
+                   ReadStats stats, Quarantine.Source source) {
+        int lineStart = from;
+        boolean skip = skipFirst;
+        long line = source.getLine();
+        long lines = 0;
+        long rejected = 0;
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == '\n') {
+                line++;
+                if (!skip) {
+                    lines++;
+                    if (!accept(buffer, lineStart, i, handler, source, line)) {
+                        rejected++;
+                    }
+                }
+                skip = false;
+                lineStart = i + 1;
+            }
+        }
+        if (last && lineStart < to) {
+            line++;
+            if (!skip) {
+                lines++;
+                if (!accept(buffer, lineStart, to, handler, source, line)) {
+                    rejected++;
+                }
+            }
+            lineStart = to;
+        }
+        source.setLine(line);
+        stats.addLines(lines);
+        stats.addRejected(rejected);
+        return lineStart - from;
+    }
+
+    /**
+     * Parses a single line and sends it to the quarantine if it is rejected.
+     *
+     * @return false if the line was rejected.
+     */
+    private static boolean accept(ByteBuffer buffer, int start, int end, SaleHandler handler,
+                                  Quarantine.Source source, long line) {
+        if (end > start && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        RejectReason reason = parseLine(buffer, start, end, handler);
+        if (reason == null) {
+            return true;
+        }
+        source.reject(line, reason, text(buffer, start, end));
+        return false;
+    }
+
+    /**
+     * Parses a single line of the form {@code document;productId;quantity}.
+     *
+     * @param buffer The buffer holding the line.
+     * @param start The index of the first byte of the line.
+     * @param end The index just past the last byte of the line, without its terminator.
+     * @param handler The handler that receives the sale.
+     * @return null if the sale was handled, otherwise the reason the line was rejected.
+     */
+    private static RejectReason parseLine(ByteBuffer buffer, int start, int end, SaleHandler handler) {
+        // Trailing empty fields do not count, as with String.split(";")
+        while (end > start && buffer.get(end - 1) == ';') {
+            end--;
+        }
+        int first = indexOf(buffer, start, end);
+        if (first < 0) {
+            return RejectReason.FIELD_COUNT;
+        }
+        int second = indexOf(buffer, first + 1, end);
+        if (second < 0 || indexOf(buffer, second + 1, end) >= 0) {
+            return RejectReason.FIELD_COUNT;
+        }
+        // The sentinel is one below the smallest valid value of each field
+        long document = parseNumber(buffer, start, first, Long.MIN_VALUE + 1, Long.MAX_VALUE);
+        long productId = parseNumber(buffer, first + 1, second, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        long quantity = parseNumber(buffer, second + 1, end, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        if (document == INVALID || productId == INVALID || quantity == INVALID) {
+            return RejectReason.INVALID_NUMBER;
+        }
+        return handler.offerSale(document, (int) productId, (int) quantity);
+    }
+
+    private static int indexOf(ByteBuffer buffer, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == ';') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parses a decimal integer with an optional sign, with the same rules as
+     * {@link Long#parseLong(String)} but without creating a String.
+     *
+     * @return The value, or {@link #INVALID} if the field is not a number between min and max.
+     */
+    private static long parseNumber(ByteBuffer buffer, int start, int end, long min, long max) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        if (i == end) {
+            return INVALID;
+        }
+        // Accumulate negatively so that the minimum value can be represented
+        long limit = negative ? min : -max;
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9 || value < (limit + digit) / 10) {
+                return INVALID;
+            }
+            value = value * 10 - digit;
+        }
+        return negative ? value : -value;
+    }
+
+    private static String text(ByteBuffer buffer, int start, int end) {
+        StringBuilder text = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            text.append((char) (buffer.get(i) & 0xFF));
+        }
+        return text.toString();
+    }
+}
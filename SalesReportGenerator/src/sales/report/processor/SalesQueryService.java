@@ -0,0 +1,215 @@
+package sales.report.processor;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import sales.report.model.Product;
+import sales.report.model.Seller;
+import sales.util.BitmapIndex;
+import sales.util.CsvWriter;
+import sales.util.LruCache;
+
+/**
+ * The SalesQueryService class answers filtered, ranked queries over the sellers and products
+ * aggregates while they stay in memory, instead of rewriting and searching the report files.
+ * Results are the same CSV as the reports, restricted to what the query asks for:
+ * <ul>
+ *     <li>{@code vendedores?tipo=CC&top=10}: the best sellers, optionally of one document type
+ *     and limited to the first N;</li>
+ *     <li>{@code productos?min=100&top=10}: the products, grouped by name, that sold at least
+ *     the given quantity, optionally limited to the first N.</li>
+ * </ul>
+ *
+ * <p>Each call to {@link #publish} installs a copy of the aggregates together with a new,
+ * empty LRU cache of results, so a result is never served from older data than the query runs
+ * on. Repeated queries are answered from the cache without touching the aggregates. The cache
+ * is bounded by the total length of the results it holds rather than by their number, since
+ * a query without {@code top} returns every seller or product.</p>
+ */
+public class SalesQueryService {
+    /** The total length of the cached results, in characters. */
+    private static final long CACHE_CHARACTERS = 4 * 1024 * 1024;
+
+    private final CountDownLatch published = new CountDownLatch(1);
+    private volatile Aggregates current;
+
+    /**
+     * Replaces the aggregates the queries run on and discards every cached result. The sellers
+     * and products are copied, so they may keep changing after this call.
+     *
+     * @param sellers The sellers with their totals.
+     * @param products The products with their sold quantities.
+     */
+    public void publish(List<Seller> sellers, List<Product> products) {
+        List<Seller> sellerCopies = new ArrayList<>(sellers.size());
+        for (Seller seller : sellers) {
+            Seller copy = new Seller(seller.getDocumentType(), seller.getDocumentNumber(),
+                                     seller.getFirstName(), seller.getLastName());
+            copy.addSale(seller.getTotalSalesCents());
+            sellerCopies.add(copy);
+        }
+        List<Product> productCopies = new ArrayList<>(products.size());
+        for (Product product : products) {
+            Product copy = new Product(product.getId(), product.getName(), product.getNameCode(), product.getPriceCents());
+            copy.incrementSoldQuantity(product.getSoldQuantity());
+            productCopies.add(copy);
+        }
+        current = new Aggregates(sellerCopies, productCopies);
+        published.countDown();
+    }
+
+    /**
+     * Waits until aggregates have been published for the first time.
+     *
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public void awaitPublished() throws InterruptedException {
+        published.await();
+    }
+
+    /**
+     * Answers a query.
+     *
+     * @param query The query, such as {@code vendedores?tipo=CC&top=10}.
+     * @return The result as CSV text, header included.
+     * @throws IllegalArgumentException If the query or one of its parameters is not valid.
+     * @throws IllegalStateException If no aggregates have been published yet.
+     */
+    public String query(String query) {
+        Aggregates aggregates = current;
+        if (aggregates == null) {
+            throw new IllegalStateException("Los datos an no se han cargado");
+        }
+        Query parsed = Query.parse(query);
+        String key = parsed.toString();
+        synchronized (aggregates.cache) {
+            String cached = aggregates.cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        String result = parsed.run(aggregates);
+        synchronized (aggregates.cache) {
+            aggregates.cache.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * The aggregates published together, and the results computed from them.
+     */
+    private static final class Aggregates {
+        final List<Seller> sellers;
+        final List<Product> products;
+        final BitmapIndex<String> documentTypes;
+        final LruCache<String, String> cache = new LruCache<>(CACHE_CHARACTERS, String::length);
+
+        Aggregates(List<Seller> sellers, List<Product> products) {
+            this.sellers = sellers;
+            this.products = products;
+            this.documentTypes = BitmapIndex.of(sellers, Seller::getDocumentType);
+        }
+    }
+
+    /**
+     * A parsed query. Its string form lists every parameter in a fixed order, so queries that
+     * differ only in parameter order or defaults share a cache entry.
+     */
+    private static final class Query {
+        private final String name;
+        private final String documentType;
+        private final int minQuantity;
+        private final int top;
+
+        private Query(String name, String documentType, int minQuantity, int top) {
+            this.name = name;
+            this.documentType = documentType;
+            this.minQuantity = minQuantity;
+            this.top = top;
+        }
+
+        static Query parse(String query) {
+            int question = query.indexOf('?');
+            String name = question < 0 ? query : query.substring(0, question);
+            if (!name.equals("vendedores") && !name.equals("productos")) {
+                throw new IllegalArgumentException("Consulta desconocida: " + name);
+            }
+            String documentType = null;
+            int minQuantity = 0;
+            int top = 0;
+            if (question >= 0) {
+                for (String parameter : query.substring(question + 1).split("&")) {
+                    if (parameter.isEmpty()) {
+                        continue;
+                    }
+                    int eq = parameter.indexOf('=');
+                    String key = eq < 0 ? parameter : parameter.substring(0, eq);
+                    String value = eq < 0 ? "" : decode(parameter.substring(eq + 1));
+                    if (key.equals("top")) {
+                        top = parseCount(key, value);
+                    } else if (key.equals("tipo") && name.equals("vendedores")) {
+                        documentType = value;
+                    } else if (key.equals("min") && name.equals("productos")) {
+                        minQuantity = parseCount(key, value);
+                    } else {
+                        throw new IllegalArgumentException("Parmetro desconocido para " + name + ": " + key);
+                    }
+                }
+            }
+            return new Query(name, documentType, minQuantity, top);
+        }
+
+        String run(Aggregates aggregates) {
+            StringWriter text = new StringWriter();
+            try (CsvWriter writer = new CsvWriter(text)) {
+                if (name.equals("vendedores")) {
+                    List<Seller> sellers = aggregates.sellers;
+                    if (documentType != null) {
+                        sellers = ReportGenerator.select(sellers,
+                                aggregates.documentTypes.any(Collections.singleton(documentType)));
+                    }
+                    ReportGenerator.writeSellers(writer, sellers, top);
+                } else {
+                    ReportGenerator.writeProducts(writer, aggregates.products, minQuantity, top);
+                }
+            } catch (IOException e) {
+                // A StringWriter does not fail
+                throw new UncheckedIOException(e);
+            }
+            return text.toString();
+        }
+
+        @Override
+        public String toString() {
+            // A missing type is written without '=', so it cannot match any type given explicitly
+            return name + "?tipo" + (documentType == null ? "" : "=" + documentType) + "&min=" + minQuantity + "&top=" + top;
+        }
+
+        private static int parseCount(String key, String value) {
+            try {
+                int count = Integer.parseInt(value);
+                if (count >= 0) {
+                    return count;
+                }
+            } catch (NumberFormatException e) {
+                // Reported below
+            }
+            throw new IllegalArgumentException("Valor invlido para " + key + ": " + value);
+        }
+
+        private static String decode(String value) {
+            try {
+                return URLDecoder.decode(value, "UTF-8");
+            } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+                throw new IllegalArgumentException("Valor invlido: " + value);
+            }
+        }
+    }
+}
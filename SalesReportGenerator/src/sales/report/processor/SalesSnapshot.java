@@ -0,0 +1,441 @@
+package sales.report.processor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+/**
+ * The SalesSnapshot class persists the aggregates of each sales file between runs, so that
+ * only new or changed files need to be parsed. Every file is recorded with its size,
+ * modification time and CRC-32 checksum alongside its {@link SalesTally} and the lines of
+ * the file that could not be read; the snapshot also keeps the combined tally of all files,
+ * which is updated by subtracting the tallies of changed or removed files and adding those
+ * of changed or new files.
+ *
+ * <p>Whether a sale names a known seller and product depends on the sellers and products
+ * files, so the snapshot also records a fingerprint of them. When it changes, every sales
+ * file is parsed again.</p>
+ */
+public class SalesSnapshot {
+    private static final int MAGIC = 0x53524E31; // "SRN1"
+    private static final int VERSION = 3;
+    /** Checks nothing, for snapshots that tally every sale whatever its seller and product. */
+    private static final SaleFilter ACCEPT_ALL = (sellerDocumentNumber, productId, quantity) -> null;
+
+    private final Map<String, FileEntry> entries = new TreeMap<>();
+    private final SalesTally total = new SalesTally();
+    private SalesTally changes = new SalesTally();
+    private long catalog;
+
+    private int parsedFiles;
+    private int reusedFiles;
+    private int removedFiles;
+
+    /**
+     * Loads a snapshot from the given file. A missing or unreadable snapshot yields an empty
+     * one, so that every sales file is parsed again.
+     *
+     * @param file The snapshot file.
+     * @return The loaded snapshot.
+     */
+    public static SalesSnapshot load(File file) {
+        SalesSnapshot snapshot = new SalesSnapshot();
+        if (!file.exists()) {
+            return snapshot;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("formato desconocido");
+            }
+            snapshot.catalog = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                long size = in.readLong();
+                long lastModified = in.readLong();
+                long checksum = in.readLong();
+                SalesTally tally = SalesTally.readFrom(in);
+                snapshot.entries.put(name, new FileEntry(size, lastModified, checksum, tally, readRejections(name, in)));
+            }
+            snapshot.total.addAll(SalesTally.readFrom(in));
+        } catch (IOException e) {
+            System.err.println("No se pudo leer la instantnea " + file + " (" + e.getMessage() + "); se procesarn todos los archivos.");
+            return new SalesSnapshot();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Brings the snapshot up to date with the given sales files. Files whose size and
+     * modification time are unchanged are reused as they are; files whose checksum is
+     * unchanged are reused with their new modification time; all others are parsed. Files
+     * no longer present are removed from the snapshot.
+     *
+     * @param salesFiles The sales files currently in the data directory.
+     * @throws IOException If an I/O error occurs while reading a file.
+     */
+    public void update(File[] salesFiles) throws IOException {
+        update(salesFiles, new ReadStats());
+    }
+
+    /**
+     * Brings the snapshot up to date as {@link #update(File[])} does, counting the bytes,
+     * lines and skipped lines of the files that are parsed in the given statistics.
+     *
+     * @param salesFiles The sales files currently in the data directory.
+     * @param stats The statistics to add to.
+     * @throws IOException If an I/O error occurs while reading a file.
+     */
+    public void update(File[] salesFiles, ReadStats stats) throws IOException {
+        update(salesFiles, stats, Quarantine.counting());
+    }
+
+    /**
+     * Brings the snapshot up to date as {@link #update(File[], ReadStats)} does, sending the
+     * lines that cannot be read to the given quarantine. The rejected lines of each file are
+     * kept in the snapshot, so those of unchanged files are sent again and the quarantine
+     * always holds the lines of every file, in file order. Every sale is tallied, whatever its
+     * seller and product.
+     *
+     * @param salesFiles The sales files currently in the data directory.
+     * @param stats The statistics to add to.
+     * @param quarantine The quarantine that receives the rejected lines.
+     * @throws IOException If an I/O error occurs while reading a file.
+     */
+    public void update(File[] salesFiles, ReadStats stats, Quarantine quarantine) throws IOException {
+        update(salesFiles, stats, quarantine, 1);
+    }
+
+    /**
+     * Brings the snapshot up to date as {@link #update(File[], ReadStats, Quarantine)} does,
+     * parsing the new and changed files on the given number of worker threads. Each file is
+     * parsed into its own tally, and the tallies are applied in file order once all of them
+     * are read, so the result does not depend on the number of threads.
+     *
+     * @param salesFiles The sales files currently in the data directory.
+     * @param stats The statistics to add to.
+     * @param quarantine The quarantine that receives the rejected lines.
+     * @param parallelism The number of worker threads to parse with.
+     * @throws IOException If an I/O error occurs while reading a file.
+     */
+    public void update(File[] salesFiles, ReadStats stats, Quarantine quarantine, int parallelism) throws IOException {
+        update(salesFiles, stats, quarantine, parallelism, ACCEPT_ALL, 0);
+    }
+
+    /**
+     * Brings the snapshot up to date as {@link #update(File[], ReadStats, Quarantine, int)}
+     * does, checking each sale of the parsed files with the given filter. Refused sales are
+     * not tallied; their lines are kept with the other rejected lines of their file, so they
+     * reach the quarantine on every update as they would in a run that reads all the files.
+     * If the catalog fingerprint differs from the one of the previous update, the files are
+     * all parsed again.
+     *
+     * @param salesFiles The sales files currently in the data directory.
+     * @param stats The statistics to add to.
+     * @param quarantine The quarantine that receives the rejected lines.
+     * @param parallelism The number of worker threads to parse with.
+     * @param filter The filter that refuses sales of unknown sellers or products.
+     * @param catalog The fingerprint of the sellers and products the filter was built from,
+     *                as returned by {@link FileReader#catalogFingerprint()}.
+     * @throws IOException If an I/O error occurs while reading a file.
+     */
+    public void update(File[] salesFiles, ReadStats stats, Quarantine quarantine, int parallelism,
+                       SaleFilter filter, long catalog) throws IOException {
+        parsedFiles = 0;
+        reusedFiles = 0;
+        removedFiles = 0;
+        changes = new SalesTally();
+
+        if (catalog != this.catalog) {
+            // The rejections and tallies kept so far were checked against other sellers and products
+            for (FileEntry entry : entries.values()) {
+                total.subtractAll(entry.tally);
+                changes.subtractAll(entry.tally);
+            }
+            entries.clear();
+            this.catalog = catalog;
+        }
+
+        Set<String> present = new HashSet<>();
+        List<File> changedFiles = new ArrayList<>();
+        List<FileEntry> changedEntries = new ArrayList<>();
+        for (File file : salesFiles) {
+            present.add(file.getName());
+            FileEntry entry = entries.get(file.getName());
+            long size = file.length();
+            long lastModified = file.lastModified();
+            if (entry != null && entry.size == size && entry.lastModified == lastModified) {
+                reusedFiles++;
+                continue;
+            }
+
+            long checksum = checksum(file);
+            if (entry != null && entry.size == size && entry.checksum == checksum) {
+                entries.put(file.getName(), new FileEntry(size, lastModified, checksum, entry.tally, entry.rejections));
+                reusedFiles++;
+                continue;
+            }
+
+            changedFiles.add(file);
+            changedEntries.add(new FileEntry(size, lastModified, checksum, new SalesTally(), new ArrayList<>()));
+        }
+
+        List<ReadStats> fileStats = parseAll(changedFiles, changedEntries, filter, parallelism);
+        for (int i = 0; i < changedFiles.size(); i++) {
+            String name = changedFiles.get(i).getName();
+            FileEntry entry = entries.get(name);
+            SalesTally tally = changedEntries.get(i).tally;
+            if (entry != null) {
+                total.subtractAll(entry.tally);
+                changes.subtractAll(entry.tally);
+            }
+            total.addAll(tally);
+            changes.addAll(tally);
+            entries.put(name, changedEntries.get(i));
+            stats.add(fileStats.get(i));
+            parsedFiles++;
+        }
+
+        for (Iterator<Map.Entry<String, FileEntry>> it = entries.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<String, FileEntry> entry = it.next();
+            if (!present.contains(entry.getKey())) {
+                total.subtractAll(entry.getValue().tally);
+                changes.subtractAll(entry.getValue().tally);
+                it.remove();
+                removedFiles++;
+            }
+        }
+
+        for (File file : salesFiles) {
+            quarantine.replay(entries.get(file.getName()).rejections);
+        }
+    }
+
+    /**
+     * Parses each file into the tally and rejected lines of its entry and returns the
+     * statistics of each file. With more than one thread, the files are parsed by a
+     * fork-join pool.
+     */
+    private static List<ReadStats> parseAll(List<File> files, List<FileEntry> entries, SaleFilter filter,
+                                            int parallelism) throws IOException {
+        List<ReadStats> stats = new ArrayList<>();
+        if (parallelism <= 1 || files.size() <= 1) {
+            for (int i = 0; i < files.size(); i++) {
+                stats.add(parse(files.get(i), entries.get(i), filter));
+            }
+            return stats;
+        }
+
+        List<Callable<ReadStats>> tasks = new ArrayList<>();
+        for (int i = 0; i < files.size(); i++) {
+            File file = files.get(i);
+            FileEntry entry = entries.get(i);
+            tasks.add(() -> parse(file, entry, filter));
+        }
+        ForkJoinPool pool = PipelineMetrics.newPool(parallelism);
+        try {
+            for (Future<ReadStats> result : pool.invokeAll(tasks)) {
+                stats.add(result.get());
+            }
+            return stats;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Lectura interrumpida");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static ReadStats parse(File file, FileEntry entry, SaleFilter filter) throws IOException {
+        ReadStats stats = new ReadStats();
+        Quarantine rejections = Quarantine.recording();
+        FileReader.readSalesFile(file, new SaleHandler() {
+            @Override
+            public void onSale(long sellerDocumentNumber, int productId, int quantity) {
+                offerSale(sellerDocumentNumber, productId, quantity);
+            }
+
+            @Override
+            public RejectReason offerSale(long sellerDocumentNumber, int productId, int quantity) {
+                RejectReason reason = filter.check(sellerDocumentNumber, productId, quantity);
+                if (reason == null) {
+                    entry.tally.add(sellerDocumentNumber, productId, quantity);
+                }
+                return reason;
+            }
+        }, stats, rejections);
+        entry.rejections.addAll(rejections.getRejections());
+        return stats;
+    }
+
+    /**
+     * Saves the snapshot to the given file. The snapshot is written to a temporary file
+     * first and then renamed, so an interrupted run never leaves a truncated snapshot.
+     *
+     * @param file The snapshot file.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void save(File file) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        File temp = new File(dir, file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(catalog);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, FileEntry> entry : entries.entrySet()) {
+                FileEntry value = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeLong(value.size);
+                out.writeLong(value.lastModified);
+                out.writeLong(value.checksum);
+                value.tally.writeTo(out);
+                writeRejections(value.rejections, out);
+            }
+            total.writeTo(out);
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Returns the combined tally of all sales files in the snapshot.
+     *
+     * @return The combined tally.
+     */
+    public SalesTally getTotal() {
+        return total;
+    }
+
+    /**
+     * Returns the difference between the combined tally after the last update and before it,
+     * so that aggregates built from the old total can be brought up to date by applying it.
+     * If the last update failed while parsing a file, neither the total nor the changes
+     * include any of the files it parsed.
+     *
+     * @return The changes made by the last update.
+     */
+    public SalesTally getChanges() {
+        return changes;
+    }
+
+    /**
+     * Returns the number of files parsed by the last update.
+     *
+     * @return The number of new or changed files.
+     */
+    public int getParsedFiles() {
+        return parsedFiles;
+    }
+
+    /**
+     * Returns the number of files reused without parsing by the last update.
+     *
+     * @return The number of unchanged files.
+     */
+    public int getReusedFiles() {
+        return reusedFiles;
+    }
+
+    /**
+     * Returns the number of files removed from the snapshot by the last update.
+     *
+     * @return The number of files no longer present.
+     */
+    public int getRemovedFiles() {
+        return removedFiles;
+    }
+
+    private static void writeRejections(List<Quarantine.Rejection> rejections, DataOutputStream out)
+            throws IOException {
+        out.writeInt(rejections.size());
+        for (Quarantine.Rejection rejection : rejections) {
+            rejection.write(out);
+        }
+    }
+
+    private static List<Quarantine.Rejection> readRejections(String name, DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Nmero de lneas rechazadas invlido: " + count);
+        }
+        List<Quarantine.Rejection> rejections = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rejections.add(Quarantine.Rejection.read(name, in));
+        }
+        return rejections;
+    }
+
+    /**
+     * Computes the CRC-32 checksum of a file's bytes, as they are stored.
+     *
+     * @param file The file.
+     * @return The checksum.
+     * @throws IOException If an I/O error occurs.
+     */
+    static long checksum(File file) throws IOException {
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * The recorded state of a single sales file.
+     */
+    private static class FileEntry {
+        private final long size;
+        private final long lastModified;
+        private final long checksum;
+        private final SalesTally tally;
+        private final List<Quarantine.Rejection> rejections;
+
+        FileEntry(long size, long lastModified, long checksum, SalesTally tally,
+                  List<Quarantine.Rejection> rejections) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.checksum = checksum;
+            this.tally = tally;
+            this.rejections = rejections;
+        }
+    }
+}
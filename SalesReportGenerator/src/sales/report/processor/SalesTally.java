@@ -0,0 +1,216 @@
+package sales.report.processor;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * The SalesTally class holds the quantity sold for each (seller document number, product ID)
+ * pair seen in a set of sales. It is an open-addressing hash table over primitive keys, so its
+ * size depends on the number of distinct pairs rather than on the number of sales.
+ *
+ * <p>Tallies only hold quantities, never amounts, so they stay valid when prices change and
+ * can be added to or subtracted from each other in any order with the same result.</p>
+ */
+public class SalesTally implements SaleHandler {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] documents;
+    private int[] productIds;
+    private long[] quantities;
+    private boolean[] used;
+    private int size;
+
+    /**
+     * Visitor that receives the cells of a tally.
+     */
+    @FunctionalInterface
+    public interface CellVisitor {
+
+        /**
+         * Visits a single cell of the tally.
+         *
+         * @param sellerDocumentNumber The document number of the seller.
+         * @param productId The ID of the product.
+         * @param quantity The total quantity of the product sold by the seller.
+         */
+        void visit(long sellerDocumentNumber, int productId, long quantity);
+    }
+
+    /**
+     * Constructs an empty SalesTally.
+     */
+    public SalesTally() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Adds a sale to the tally.
+     *
+     * @param sellerDocumentNumber The document number of the seller involved in the sale.
+     * @param productId The ID of the product sold.
+     * @param quantity The quantity of the product sold.
+     */
+    @Override
+    public void onSale(long sellerDocumentNumber, int productId, int quantity) {
+        add(sellerDocumentNumber, productId, quantity);
+    }
+
+    /**
+     * Adds a quantity to the cell of the given seller and product.
+     *
+     * @param sellerDocumentNumber The document number of the seller.
+     * @param productId The ID of the product.
+     * @param quantity The quantity to add; may be negative.
+     */
+    public void add(long sellerDocumentNumber, int productId, long quantity) {
+        int pos = find(sellerDocumentNumber, productId);
+        if (!used[pos]) {
+            if ((size + 1) * 2 > used.length) {
+                rehash(used.length * 2);
+                pos = find(sellerDocumentNumber, productId);
+            }
+            used[pos] = true;
+            documents[pos] = sellerDocumentNumber;
+            productIds[pos] = productId;
+            size++;
+        }
+        quantities[pos] = Math.addExact(quantities[pos], quantity);
+    }
+
+    /**
+     * Adds every cell of another tally to this one.
+     *
+     * @param other The tally to add.
+     */
+    public void addAll(SalesTally other) {
+        other.forEach(this::add);
+    }
+
+    /**
+     * Subtracts every cell of another tally from this one.
+     *
+     * @param other The tally to subtract.
+     */
+    public void subtractAll(SalesTally other) {
+        other.forEach((document, productId, quantity) -> add(document, productId, -quantity));
+    }
+
+    /**
+     * Returns the quantity held for the given seller and product.
+     *
+     * @param sellerDocumentNumber The document number of the seller.
+     * @param productId The ID of the product.
+     * @return The quantity, or 0 if the pair was never seen.
+     */
+    public long get(long sellerDocumentNumber, int productId) {
+        int pos = find(sellerDocumentNumber, productId);
+        return used[pos] ? quantities[pos] : 0;
+    }
+
+    /**
+     * Passes every cell with a non-zero quantity to the visitor.
+     *
+     * @param visitor The visitor that receives the cells.
+     */
+    public void forEach(CellVisitor visitor) {
+        for (int i = 0; i < used.length; i++) {
+            if (used[i] && quantities[i] != 0) {
+                visitor.visit(documents[i], productIds[i], quantities[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of distinct (seller, product) pairs held by the tally. Pairs whose
+     * quantity dropped back to zero may still be counted until the table is next resized.
+     *
+     * @return The number of cells.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Writes the cells with a non-zero quantity to the given output.
+     *
+     * @param out The output to write to.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        int cells = 0;
+        for (int i = 0; i < used.length; i++) {
+            if (used[i] && quantities[i] != 0) {
+                cells++;
+            }
+        }
+        out.writeInt(cells);
+        for (int i = 0; i < used.length; i++) {
+            if (used[i] && quantities[i] != 0) {
+                out.writeLong(documents[i]);
+                out.writeInt(productIds[i]);
+                out.writeLong(quantities[i]);
+            }
+        }
+    }
+
+    /**
+     * Reads a tally previously written with {@link #writeTo(DataOutput)}.
+     *
+     * @param in The input to read from.
+     * @return The tally that was read.
+     * @throws IOException If an I/O error occurs or the data is malformed.
+     */
+    public static SalesTally readFrom(DataInput in) throws IOException {
+        int cells = in.readInt();
+        if (cells < 0) {
+            throw new IOException("Nmero de celdas invlido: " + cells);
+        }
+        SalesTally tally = new SalesTally();
+        for (int i = 0; i < cells; i++) {
+            tally.add(in.readLong(), in.readInt(), in.readLong());
+        }
+        return tally;
+    }
+
+    private int find(long document, int productId) {
+        int mask = used.length - 1;
+        int pos = hash(document, productId) & mask;
+        while (used[pos] && (documents[pos] != document || productIds[pos] != productId)) {
+            pos = (pos + 1) & mask;
+        }
+        return pos;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldDocuments = documents;
+        int[] oldProductIds = productIds;
+        long[] oldQuantities = quantities;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        size = 0;
+        // Cells whose quantity dropped back to zero are discarded here
+        for (int i = 0; i < oldUsed.length; i++) {
+            if (oldUsed[i] && oldQuantities[i] != 0) {
+                int pos = find(oldDocuments[i], oldProductIds[i]);
+                used[pos] = true;
+                documents[pos] = oldDocuments[i];
+                productIds[pos] = oldProductIds[i];
+                quantities[pos] = oldQuantities[i];
+                size++;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        documents = new long[capacity];
+        productIds = new int[capacity];
+        quantities = new long[capacity];
+        used = new boolean[capacity];
+    }
+
+    private static int hash(long document, int productId) {
+        long h = (document * 31 + productId) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
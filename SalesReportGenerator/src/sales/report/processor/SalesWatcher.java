@@ -0,0 +1,211 @@
+package sales.report.processor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import sales.report.model.Product;
+import sales.report.model.Seller;
+import sales.util.Constants;
+import sales.util.InputCodecs;
+
+/**
+ * The SalesWatcher class keeps the reports up to date while sales files land in the data
+ * directory. It watches the directory with a WatchService and, once it has been quiet for
+ * the debounce delay, brings a {@link SalesSnapshot} up to date: only new or changed files
+ * are parsed, and the resulting change in the tallies is applied to the seller and product
+ * totals already in memory. Reports are written to temporary files and renamed atomically,
+ * so readers never see a partial report.
+ *
+ * <p>The sellers and products files are read again, and the totals rebuilt from the whole
+ * snapshot, only when the content of one of them changes or an update fails. Their rejected
+ * lines are kept in memory and, with those the snapshot keeps for the sales files, including
+ * sales of unknown sellers or products, written to the quarantine file on every update.</p>
+ */
+public class SalesWatcher {
+    /** Longest time an update is postponed while files keep arriving, in debounce periods. */
+    private static final int MAX_DEBOUNCE_PERIODS = 10;
+
+    private final ProcessorOptions options;
+    private final SalesQueryService queries;
+    private final File snapshotFile = new File(Constants.REPORTS_DIRECTORY, Constants.SALES_SNAPSHOT);
+
+    private SalesSnapshot snapshot;
+    private List<Seller> sellers;
+    private List<Product> products;
+    private SalesAggregator aggregator;
+    private CatalogIndex catalog;
+    private Quarantine catalogRejections;
+    private long catalogFingerprint;
+
+    /**
+     * Constructs a SalesWatcher.
+     *
+     * @param options The options that select the debounce delay and the shape of the reports.
+     */
+    public SalesWatcher(ProcessorOptions options) {
+        this(options, null);
+    }
+
+    /**
+     * Constructs a SalesWatcher that also publishes the totals to a query service after
+     * every successful update.
+     *
+     * @param options The options that select the debounce delay and the shape of the reports.
+     * @param queries The query service to publish to, or null.
+     */
+    public SalesWatcher(ProcessorOptions options, SalesQueryService queries) {
+        this.options = options;
+        this.queries = queries;
+    }
+
+    /**
+     * Writes the reports for the files currently in the data directory and then updates them
+     * each time the directory changes, until the thread is interrupted.
+     *
+     * @throws IOException If the data directory cannot be watched.
+     * @throws InterruptedException If the thread is interrupted while waiting for changes.
+     */
+    public void run() throws IOException, InterruptedException {
+        Path dataDirectory = Paths.get(Constants.DATA_DIRECTORY);
+        try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
+            dataDirectory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            snapshot = SalesSnapshot.load(snapshotFile);
+            update();
+            System.out.println("Vigilando la carpeta '" + Constants.DATA_DIRECTORY + "'. Pulse Ctrl+C para terminar.");
+
+            while (true) {
+                boolean changed = drain(watcher.take());
+                // Wait until the directory has been quiet for the debounce delay, but not forever
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos((long) options.getDebounceMillis() * MAX_DEBOUNCE_PERIODS);
+                WatchKey key;
+                while (System.nanoTime() < deadline
+                        && (key = watcher.poll(options.getDebounceMillis(), TimeUnit.MILLISECONDS)) != null) {
+                    changed |= drain(key);
+                }
+                if (changed) {
+                    update();
+                }
+            }
+        }
+    }
+
+    /**
+     * Consumes the events of a watch key.
+     *
+     * @return true if an event concerns a sales, sellers or products file, or events were lost.
+     */
+    private boolean drain(WatchKey key) throws IOException {
+        boolean relevant = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                relevant = true;
+            } else {
+                String name = event.context().toString();
+                String plain = InputCodecs.stripExtension(name);
+                relevant |= FileReader.isSalesFileName(name)
+                        || plain.equals(Constants.SELLERS_FILE) || plain.equals(Constants.PRODUCTS_FILE);
+            }
+        }
+        if (!key.reset()) {
+            throw new IOException("La carpeta '" + Constants.DATA_DIRECTORY + "' ya no se puede vigilar");
+        }
+        return relevant;
+    }
+
+    /**
+     * Brings the totals and the reports up to date. A failed update is reported and leaves
+     * the previous reports in place; the next update then rebuilds the totals from scratch.
+     */
+    private void update() {
+        PipelineMetrics metrics = new PipelineMetrics();
+        metrics.register();
+        try {
+            // Taken before the files are read, so a file replaced meanwhile is read again next time
+            long currentCatalog = FileReader.catalogFingerprint();
+            boolean reload = sellers == null || currentCatalog != catalogFingerprint;
+            if (reload) {
+                sellers = null;
+                catalogFingerprint = currentCatalog;
+                List<Seller> newSellers;
+                Quarantine rejections = Quarantine.recording();
+                try (PipelineMetrics.Phase phase = metrics.start("read_sellers")) {
+                    newSellers = FileReader.readSellers(phase.getStats(), rejections);
+                }
+                try (PipelineMetrics.Phase phase = metrics.start("read_products")) {
+                    products = FileReader.readProducts(phase.getStats(), rejections);
+                }
+                aggregator = new SalesAggregator(newSellers, products);
+                catalog = options.hasFilter() ? new CatalogIndex(newSellers, products) : null;
+                catalogRejections = rejections;
+                sellers = newSellers;
+            }
+
+            String quarantineTemp = Constants.QUARANTINE_FILE + ".tmp";
+            long rejected;
+            try (Quarantine quarantine = new Quarantine(new File(Constants.REPORTS_DIRECTORY, quarantineTemp))) {
+                quarantine.replay(catalogRejections.getRejections());
+                try (PipelineMetrics.Phase phase = metrics.start("read_sales")) {
+                    snapshot.update(FileReader.listSalesFiles(), phase.getStats(), quarantine, options.getThreads(),
+                            aggregator, catalogFingerprint);
+                }
+                rejected = quarantine.getTotal();
+            }
+            if (rejected > 0) {
+                replace(quarantineTemp, Constants.QUARANTINE_FILE);
+            } else {
+                Files.deleteIfExists(Paths.get(Constants.REPORTS_DIRECTORY, Constants.QUARANTINE_FILE));
+            }
+            try (PipelineMetrics.Phase phase = metrics.start("process_sales")) {
+                aggregator.apply(reload ? snapshot.getTotal() : snapshot.getChanges());
+                snapshot.save(snapshotFile);
+                phase.getStats().addBytes(snapshotFile.length());
+            }
+
+            String sellersTemp = Constants.SELLERS_REPORT + ".tmp";
+            String productsTemp = Constants.PRODUCTS_REPORT + ".tmp";
+            Main.writeReports(sellers, null, products, catalog, options, metrics, sellersTemp, productsTemp);
+            replace(sellersTemp, Constants.SELLERS_REPORT);
+            replace(productsTemp, Constants.PRODUCTS_REPORT);
+            if (options.isCube()) {
+                String cubeTemp = Constants.SELLER_PRODUCT_REPORT + ".tmp";
+                String cubeByNameTemp = Constants.SELLER_PRODUCT_NAME_REPORT + ".tmp";
+                Main.writeCubeReports(snapshot.getTotal(), sellers, products, metrics, cubeTemp, cubeByNameTemp);
+                replace(cubeTemp, Constants.SELLER_PRODUCT_REPORT);
+                replace(cubeByNameTemp, Constants.SELLER_PRODUCT_NAME_REPORT);
+            }
+            metrics.writeJson(new File(Constants.REPORTS_DIRECTORY, Constants.METRICS_FILE));
+            if (queries != null) {
+                queries.publish(sellers, products);
+            }
+
+            System.out.println("Reportes actualizados. Archivos de ventas: " + snapshot.getParsedFiles() + " procesados, "
+                    + snapshot.getReusedFiles() + " sin cambios, " + snapshot.getRemovedFiles() + " eliminados.");
+        } catch (ArithmeticException e) {
+            // An overflowing total fails this update only; the next one rebuilds the totals
+            sellers = null;
+            System.err.println("Error: un total de ventas supera el valor mximo representable ("
+                    + e.getMessage() + "); se conservan los reportes anteriores.");
+        } catch (IOException | RuntimeException e) {
+            // The totals may hold part of the changes; rebuild them on the next update
+            sellers = null;
+            System.err.println("Error al actualizar los reportes: " + e.getMessage());
+        }
+    }
+
+    private static void replace(String tempName, String fileName) throws IOException {
+        Path reportsDirectory = Paths.get(Constants.REPORTS_DIRECTORY);
+        Files.move(reportsDirectory.resolve(tempName), reportsDirectory.resolve(fileName),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,72 @@
+package sales.report.processor;
+
+import java.util.List;
+import sales.report.model.Seller;
+import sales.util.LongIndex;
+
+/**
+ * The SellerIndex class provides constant-time lookup of sellers by document number.
+ * It maps the primitive document number to the seller's position with a {@link LongIndex},
+ * so lookups neither box the key nor build any intermediate String.
+ */
+public class SellerIndex {
+    private static final int NOT_FOUND = LongIndex.NOT_FOUND;
+
+    private final Seller[] sellers;
+    private final LongIndex index;
+
+    /**
+     * Builds the index over the given sellers. When several sellers share a document
+     * number, the first one in the list wins, as it did with the previous linear search.
+     *
+     * @param sellers The sellers to index.
+     */
+    public SellerIndex(List<Seller> sellers) {
+        this.sellers = sellers.toArray(new Seller[0]);
+        this.index = new LongIndex(this.sellers.length);
+        for (int i = 0; i < this.sellers.length; i++) {
+            index.putIfAbsent(this.sellers[i].getDocumentNumber(), i);
+        }
+    }
+
+    /**
+     * Returns the position of the seller with the given document number in the list
+     * the index was built from.
+     *
+     * @param documentNumber The document number of the seller.
+     * @return The seller's position, or -1 if no seller has that document number.
+     */
+    public int slotOf(long documentNumber) {
+        return index.get(documentNumber);
+    }
+
+    /**
+     * Finds a seller by their document number.
+     *
+     * @param documentNumber The document number of the seller.
+     * @return The Seller object if found, otherwise null.
+     */
+    public Seller find(long documentNumber) {
+        int slot = slotOf(documentNumber);
+        return slot == NOT_FOUND ? null : sellers[slot];
+    }
+
+    /**
+     * Returns the seller stored at the given position.
+     *
+     * @param slot A position previously returned by {@link #slotOf(long)}.
+     * @return The Seller object at that position.
+     */
+    public Seller get(int slot) {
+        return sellers[slot];
+    }
+
+    /**
+     * Returns the number of sellers in the index.
+     *
+     * @return The seller count.
+     */
+    public int size() {
+        return sellers.length;
+    }
+}
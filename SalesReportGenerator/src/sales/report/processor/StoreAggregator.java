@@ -0,0 +1,110 @@
+package sales.report.processor;
+
+import sales.report.model.ProductStore;
+import sales.report.model.SellerStore;
+import sales.util.Money;
+
+/**
+ * The StoreAggregator class accumulates sales straight into the columns of a
+ * {@link SellerStore} and a {@link ProductStore}, resolving sellers and products to slots
+ * without creating any object per sale.
+ */
+public class StoreAggregator implements Aggregator {
+    private final SellerStore sellers;
+    private final ProductStore products;
+
+    /**
+     * Constructs a StoreAggregator over the given stores.
+     *
+     * @param sellers The sellers whose totals are updated.
+     * @param products The products whose sold quantities are updated.
+     */
+    public StoreAggregator(SellerStore sellers, ProductStore products) {
+        this.sellers = sellers;
+        this.products = products;
+    }
+
+    /**
+     * Adds the sale to its seller's total sales and its product's sold quantity. Sales with
+     * an unknown seller or product are ignored; {@link #offerSale} reports them instead.
+     *
+     * @param sellerDocumentNumber The document number of the seller involved in the sale.
+     * @param productId The ID of the product sold.
+     * @param quantity The quantity of the product sold.
+     */
+    @Override
+    public void onSale(long sellerDocumentNumber, int productId, int quantity) {
+        offerSale(sellerDocumentNumber, productId, quantity);
+    }
+
+    @Override
+    public RejectReason offerSale(long sellerDocumentNumber, int productId, int quantity) {
+        int seller = sellers.slotOf(sellerDocumentNumber);
+        if (seller < 0) {
+            return RejectReason.UNKNOWN_SELLER;
+        }
+        int product = products.slotOf(productId);
+        if (product < 0) {
+            return RejectReason.UNKNOWN_PRODUCT;
+        }
+        sellers.addSale(seller, Money.multiply(products.getPriceCents(product), quantity));
+        products.incrementSoldQuantity(product, quantity);
+        return null;
+    }
+
+    @Override
+    public RejectReason check(long sellerDocumentNumber, int productId, int quantity) {
+        if (sellers.slotOf(sellerDocumentNumber) < 0) {
+            return RejectReason.UNKNOWN_SELLER;
+        }
+        return products.slotOf(productId) < 0 ? RejectReason.UNKNOWN_PRODUCT : null;
+    }
+
+    @Override
+    public void apply(SalesTally tally) {
+        tally.forEach(this::add);
+    }
+
+    @Override
+    public PartialTotals newPartial() {
+        return new PartialTotals(new PartialTotals.Slots() {
+            @Override
+            public int sellerSlotOf(long documentNumber) {
+                return sellers.slotOf(documentNumber);
+            }
+
+            @Override
+            public int productSlotOf(int productId) {
+                return products.slotOf(productId);
+            }
+
+            @Override
+            public long getPriceCents(int productSlot) {
+                return products.getPriceCents(productSlot);
+            }
+        }, sellers.size(), products.size());
+    }
+
+    @Override
+    public void addPartial(PartialTotals partial) {
+        for (int slot = 0; slot < partial.salesCents.length; slot++) {
+            if (partial.salesCents[slot] != 0) {
+                sellers.addSale(slot, partial.salesCents[slot]);
+            }
+        }
+        for (int slot = 0; slot < partial.soldQuantities.length; slot++) {
+            if (partial.soldQuantities[slot] != 0) {
+                products.incrementSoldQuantity(slot, partial.soldQuantities[slot]);
+            }
+        }
+    }
+
+    private void add(long sellerDocumentNumber, int productId, long quantity) {
+        int seller = sellers.slotOf(sellerDocumentNumber);
+        int product = products.slotOf(productId);
+        if (seller >= 0 && product >= 0) {
+            sellers.addSale(seller, Money.multiply(products.getPriceCents(product), quantity));
+            products.incrementSoldQuantity(product, quantity);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package sales.report.processor;
+
+/**
+ * The TallyingAggregator class passes sales on to another {@link Aggregator} and also tallies
+ * the quantity of every sale it accepts by seller and product, so that a {@link SalesCube} can
+ * be built from the same single pass over the sales files.
+ */
+public class TallyingAggregator implements Aggregator {
+    private final Aggregator aggregator;
+    private final SalesTally tally = new SalesTally();
+
+    /**
+     * Constructs a TallyingAggregator in front of the given aggregator.
+     *
+     * @param aggregator The aggregator that updates the sellers and products.
+     */
+    public TallyingAggregator(Aggregator aggregator) {
+        this.aggregator = aggregator;
+    }
+
+    @Override
+    public void onSale(long sellerDocumentNumber, int productId, int quantity) {
+        offerSale(sellerDocumentNumber, productId, quantity);
+    }
+
+    @Override
+    public RejectReason offerSale(long sellerDocumentNumber, int productId, int quantity) {
+        RejectReason reason = aggregator.offerSale(sellerDocumentNumber, productId, quantity);
+        if (reason == null) {
+            tally.add(sellerDocumentNumber, productId, quantity);
+        }
+        return reason;
+    }
+
+    @Override
+    public RejectReason check(long sellerDocumentNumber, int productId, int quantity) {
+        return aggregator.check(sellerDocumentNumber, productId, quantity);
+    }
+
+    @Override
+    public void apply(SalesTally other) {
+        aggregator.apply(other);
+        tally.addAll(other);
+    }
+
+    /**
+     * Returns new, empty totals over the slots of the aggregator behind this one, which also
+     * tally the sales they accept until {@link #addPartial} adds them here.
+     *
+     * @return The new partial.
+     */
+    @Override
+    public PartialTotals newPartial() {
+        return aggregator.newPartial().tallying();
+    }
+
+    @Override
+    public void addPartial(PartialTotals partial) {
+        aggregator.addPartial(partial);
+        if (partial.tally != null) {
+            tally.addAll(partial.tally);
+        }
+    }
+
+    /**
+     * Returns the tally of the sales accepted so far.
+     *
+     * @return The tally, which keeps growing as more sales are aggregated.
+     */
+    public SalesTally getTally() {
+        return tally;
+    }
+}
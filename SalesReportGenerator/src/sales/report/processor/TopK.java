@@ -0,0 +1,106 @@
+package sales.report.processor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * The TopK class keeps the k highest-ranked items offered to it in a bounded heap, using
+ * O(k) memory and O(n log k) time for n items. Items that rank equally keep the order in
+ * which they were offered, so the result matches a stable sort of all the items truncated
+ * to k.
+ *
+ * @param <T> The type of the ranked items.
+ */
+public class TopK<T> {
+    private final int k;
+    private final Comparator<? super T> order;
+    private final PriorityQueue<Entry<T>> heap;
+    private long offered;
+
+    /**
+     * Constructs an empty TopK.
+     *
+     * @param k The maximum number of items to keep.
+     * @param order The ranking order; items that compare first rank highest.
+     * @throws IllegalArgumentException If k is not positive.
+     */
+    public TopK(int k, Comparator<? super T> order) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k debe ser positivo: " + k);
+        }
+        this.k = k;
+        this.order = order;
+        // The root of the heap is the lowest-ranked item kept so far
+        this.heap = new PriorityQueue<>(Math.min(k, 1024), (a, b) -> compare(b, a));
+    }
+
+    /**
+     * Offers an item; it is kept if it ranks among the k highest seen so far.
+     *
+     * @param item The item to offer.
+     */
+    public void offer(T item) {
+        long sequence = offered++;
+        if (heap.size() < k) {
+            heap.add(new Entry<>(item, sequence));
+        } else if (order.compare(item, heap.peek().item) < 0) {
+            heap.poll();
+            heap.add(new Entry<>(item, sequence));
+        }
+    }
+
+    /**
+     * Returns the items kept so far, highest-ranked first. The TopK can still be offered
+     * items afterwards.
+     *
+     * @return The ranked items.
+     */
+    public List<T> toList() {
+        List<Entry<T>> entries = new ArrayList<>(heap);
+        Collections.sort(entries, this::compare);
+        List<T> items = new ArrayList<>(entries.size());
+        for (Entry<T> entry : entries) {
+            items.add(entry.item);
+        }
+        return items;
+    }
+
+    /**
+     * Selects the k highest-ranked items of a collection without modifying it.
+     *
+     * @param items The items to rank.
+     * @param k The maximum number of items to return.
+     * @param order The ranking order; items that compare first rank highest.
+     * @param <T> The type of the ranked items.
+     * @return The selected items, highest-ranked first.
+     * @throws IllegalArgumentException If k is not positive.
+     */
+    public static <T> List<T> select(Iterable<? extends T> items, int k, Comparator<? super T> order) {
+        TopK<T> top = new TopK<>(k, order);
+        for (T item : items) {
+            top.offer(item);
+        }
+        return top.toList();
+    }
+
+    private int compare(Entry<T> a, Entry<T> b) {
+        int result = order.compare(a.item, b.item);
+        return result != 0 ? result : Long.compare(a.sequence, b.sequence);
+    }
+
+    /**
+     * An item together with the position in which it was offered.
+     */
+    private static class Entry<T> {
+        private final T item;
+        private final long sequence;
+
+        Entry(T item, long sequence) {
+            this.item = item;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package sales.util;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The BitmapIndex class maps each distinct value of a column to the set of rows that hold it,
+ * as a bitmap with one bit per row. Filters on the column are answered by combining bitmaps
+ * with word-wide operations instead of testing every row, and the rows that pass are then
+ * visited in order with {@link BitSet#nextSetBit(int)}.
+ *
+ * @param <K> The type of the indexed values.
+ */
+public class BitmapIndex<K> {
+    private final Map<K, BitSet> bitmaps = new HashMap<>();
+    private final int rows;
+
+    private BitmapIndex(int rows) {
+        this.rows = rows;
+    }
+
+    /**
+     * Builds the index of a column over the given rows.
+     *
+     * @param rows The rows; a row's position in the list is its bit in the bitmaps.
+     * @param column The function that reads the indexed value of a row.
+     * @param <T> The type of the rows.
+     * @param <K> The type of the indexed values.
+     * @return A new BitmapIndex.
+     */
+    public static <T, K> BitmapIndex<K> of(List<T> rows, Function<? super T, ? extends K> column) {
+        BitmapIndex<K> index = new BitmapIndex<>(rows.size());
+        int row = 0;
+        for (T item : rows) {
+            index.bitmaps.computeIfAbsent(column.apply(item), k -> new BitSet(index.rows)).set(row);
+            row++;
+        }
+        return index;
+    }
+
+    /**
+     * Returns the rows that hold any of the given values.
+     *
+     * @param values The values to look up.
+     * @return A new bitmap that the caller may modify.
+     */
+    public BitSet any(Collection<? extends K> values) {
+        BitSet selected = new BitSet(rows);
+        for (K value : values) {
+            BitSet bitmap = bitmaps.get(value);
+            if (bitmap != null) {
+                selected.or(bitmap);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Returns a bitmap with the bit of every row set, to start an intersection from.
+     *
+     * @return A new bitmap that the caller may modify.
+     */
+    public BitSet all() {
+        BitSet selected = new BitSet(rows);
+        selected.set(0, rows);
+        return selected;
+    }
+
+    /**
+     * Returns the number of rows the index was built over.
+     *
+     * @return The row count.
+     */
+    public int getRowCount() {
+        return rows;
+    }
+}
@@ -0,0 +1,32 @@
+package sales.util;
+
+/**
+ * The ColumnarFormat class describes the binary columnar layout used as an alternative to the
+ * semicolon-separated Vendedor_*.txt files. All values are big-endian.
+ *
+ * <pre>
+ * File header:  magic (int) | version (int) | rows per block (int) | block count (int) | row count (long)
+ *               | source size (long) | source modification time (long)
+ * Each block:   rows (int) | seller document column (rows x long) | product ID column (rows x int)
+ *               | quantity column (rows x int)
+ * </pre>
+ *
+ * The source size and modification time are those of the text file the columnar file was
+ * converted from, taken before it was read, or {@link #NO_SOURCE} if it was written directly.
+ * A text file that no longer has them has changed since the conversion, even within the
+ * resolution of a coarse file system clock.
+ */
+public final class ColumnarFormat {
+    public static final int MAGIC = 0x56434F4C; // "VCOL"
+    public static final int VERSION = 1;
+    public static final String EXTENSION = ".col";
+    public static final long NO_SOURCE = -1;
+
+    public static final int FILE_HEADER_SIZE = 4 + 4 + 4 + 4 + 8 + 8 + 8;
+    public static final int BLOCK_HEADER_SIZE = 4;
+    public static final int ROW_SIZE = 8 + 4 + 4;
+    public static final int DEFAULT_BLOCK_ROWS = 64 * 1024;
+
+    private ColumnarFormat() {
+    }
+}
@@ -13,6 +13,14 @@ public class Constants {
     public static final String PRODUCTS_FILE = "productos.txt";
     public static final String SELLERS_REPORT = "reporte_vendedores.csv";
     public static final String PRODUCTS_REPORT = "reporte_productos.csv";
+    public static final String SELLERS_PARTIAL_REPORT = "reporte_vendedores_parcial.csv";
+    public static final String PRODUCTS_PARTIAL_REPORT = "reporte_productos_parcial.csv";
+    public static final String SELLER_PRODUCT_REPORT = "reporte_vendedor_producto.csv";
+    public static final String SELLER_PRODUCT_NAME_REPORT = "reporte_vendedor_nombre_producto.csv";
+    public static final String SALES_SNAPSHOT = "instantanea_ventas.bin";
+    public static final String METRICS_FILE = "metricas.json";
+    public static final String PARTIAL_PREFIX = "parcial_";
+    public static final String QUARANTINE_FILE = "cuarentena.csv";
 
     // Data generation constants
     public static final int SALESMAN_COUNT = 5;
@@ -0,0 +1,204 @@
+package sales.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * The Decimals class parses and formats decimal amounts held as fixed-point cents. It
+ * replaces NumberFormat for the comma-decimal prices in the data files: it keeps no state,
+ * so it is safe to use from any thread, and it parses without allocating or boxing. Amounts
+ * are formatted into char arrays, which writers such as {@link CsvWriter} fill in place.
+ */
+public final class Decimals {
+    /** Most chars written by {@link #putLong}, those of {@link Long#MIN_VALUE}. */
+    static final int MAX_LONG_CHARS = 20;
+    /** Most chars written by {@link #putCents}: a sign, 17 digits, the separator and 2 decimals. */
+    static final int MAX_CENTS_CHARS = 21;
+
+    private Decimals() {
+    }
+
+    /**
+     * Parses a decimal amount such as {@code 407,63} or {@code 1.234,5} into cents. The
+     * comma is the decimal separator and dots are grouping separators, as in the es-ES
+     * locale. Digits beyond the second decimal are rounded half up.
+     *
+     * @param text The text to parse.
+     * @return The amount in cents.
+     * @throws NumberFormatException If the text is not a valid amount or does not fit in a
+     *                               long number of cents.
+     */
+    public static long parseCents(CharSequence text) {
+        return parseCents(text, 0, text.length());
+    }
+
+    /**
+     * Parses the decimal amount held in a range of the given text into cents.
+     *
+     * @param text The text holding the amount.
+     * @param start The index of the first character of the amount.
+     * @param end The index just past the last character of the amount.
+     * @return The amount in cents.
+     * @throws NumberFormatException If the range is not a valid amount or does not fit in a
+     *                               long number of cents.
+     */
+    public static long parseCents(CharSequence text, int start, int end) {
+        try {
+            return parseCentsExact(text, start, end);
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Importe fuera de rango: \"" + text.subSequence(start, end) + "\"");
+        }
+    }
+
+    private static long parseCentsExact(CharSequence text, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = text.charAt(i) == '-';
+            i++;
+        }
+
+        long units = 0;
+        int digits = 0;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                units = Math.addExact(Math.multiplyExact(units, 10), c - '0');
+                digits++;
+            } else if (c != '.') {
+                break;
+            }
+        }
+
+        long cents = 0;
+        int decimals = 0;
+        boolean roundUp = false;
+        if (i < end && text.charAt(i) == ',') {
+            for (i++; i < end; i++) {
+                char c = text.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                if (decimals < 2) {
+                    cents = cents * 10 + (c - '0');
+                } else if (decimals == 2) {
+                    roundUp = c >= '5';
+                }
+                decimals++;
+            }
+        }
+        if (i != end || digits + decimals == 0) {
+            throw new NumberFormatException("Importe invlido: \"" + text.subSequence(start, end) + "\"");
+        }
+        for (; decimals < 2; decimals++) {
+            cents *= 10;
+        }
+
+        long value = Math.addExact(Math.multiplyExact(units, 100), cents + (roundUp ? 1 : 0));
+        return negative ? -value : value;
+    }
+
+    /**
+     * Appends an amount in cents with exactly two decimals, as {@code %.2f} would print it.
+     *
+     * @param out The builder to append to.
+     * @param cents The amount in cents.
+     * @param decimalSeparator The character placed between the units and the cents.
+     * @return The given builder.
+     */
+    public static StringBuilder appendCents(StringBuilder out, long cents, char decimalSeparator) {
+        char[] chars = new char[MAX_CENTS_CHARS];
+        return out.append(chars, 0, putCents(cents, decimalSeparator, chars, 0));
+    }
+
+    /**
+     * Writes an amount in cents with exactly two decimals into the array, as {@code %.2f}
+     * would print it, and returns the position after it.
+     *
+     * @param cents The amount in cents.
+     * @param decimalSeparator The character placed between the units and the cents.
+     * @param chars The array to write to, with room for {@link #MAX_CENTS_CHARS} chars.
+     * @param position The index of the first char to write.
+     * @return The index just past the last char written.
+     */
+    static int putCents(long cents, char decimalSeparator, char[] chars, int position) {
+        long units = cents / 100;
+        int fraction = (int) Math.abs(cents % 100);
+        if (cents < 0) {
+            // Units are 0 for amounts above -1, so the sign is written apart
+            chars[position++] = '-';
+            position = putLong(-units, chars, position);
+        } else {
+            position = putLong(units, chars, position);
+        }
+        chars[position++] = decimalSeparator;
+        chars[position++] = (char) ('0' + fraction / 10);
+        chars[position++] = (char) ('0' + fraction % 10);
+        return position;
+    }
+
+    /**
+     * Writes the decimal digits of a value into the array, as {@code %d} would, and returns
+     * the position after them.
+     *
+     * @param value The value.
+     * @param chars The array to write to, with room for {@link #MAX_LONG_CHARS} chars.
+     * @param position The index of the first char to write.
+     * @return The index just past the last char written.
+     */
+    static int putLong(long value, char[] chars, int position) {
+        if (value == Long.MIN_VALUE) {
+            String digits = Long.toString(value);
+            digits.getChars(0, digits.length(), chars, position);
+            return position + digits.length();
+        }
+        if (value < 0) {
+            chars[position++] = '-';
+            value = -value;
+        }
+        int length = 1;
+        for (long rest = value / 10; rest != 0; rest /= 10) {
+            length++;
+        }
+        int end = position + length;
+        for (int i = end - 1; i >= position; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return end;
+    }
+
+    /**
+     * Formats an amount in cents with exactly two decimals.
+     *
+     * @param cents The amount in cents.
+     * @param decimalSeparator The character placed between the units and the cents.
+     * @return The formatted amount.
+     */
+    public static String formatCents(long cents, char decimalSeparator) {
+        return appendCents(new StringBuilder(24), cents, decimalSeparator).toString();
+    }
+
+    /**
+     * Returns the decimal separator that {@code %.2f} uses in the default format locale.
+     *
+     * @return The default decimal separator.
+     */
+    public static char defaultDecimalSeparator() {
+        return DecimalFormatSymbols.getInstance(Locale.getDefault(Locale.Category.FORMAT)).getDecimalSeparator();
+    }
+
+    /**
+     * Converts an amount to cents, rounding half up from its shortest decimal form as
+     * {@code %.2f} does, so that 1.005 becomes 101 cents.
+     *
+     * @param amount The amount to convert.
+     * @return The amount in cents.
+     * @throws ArithmeticException If the amount does not fit in a long number of cents.
+     */
+    public static long toCents(double amount) {
+        return BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValueExact();
+    }
+}
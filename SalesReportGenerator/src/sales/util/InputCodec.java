@@ -0,0 +1,28 @@
+package sales.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The InputCodec interface decodes compressed input files while they are read, so archived
+ * files need not be decompressed to disk first. Each codec handles the files whose names end
+ * with its extension; see {@link InputCodecs} for how codecs are looked up and added.
+ */
+public interface InputCodec {
+
+    /**
+     * Returns the extension of the files this codec decodes.
+     *
+     * @return The extension, including its leading dot, such as {@code ".gz"}.
+     */
+    String getExtension();
+
+    /**
+     * Wraps a stream of encoded bytes in one that returns them decoded.
+     *
+     * @param in The encoded bytes.
+     * @return The decoded bytes; closing it closes {@code in}.
+     * @throws IOException If the stream does not start as this codec expects.
+     */
+    InputStream decode(InputStream in) throws IOException;
+}
@@ -0,0 +1,144 @@
+package sales.util;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The InputCodecs class finds the {@link InputCodec} for an input file by its name and opens
+ * the file through it. Gzip is always available; other codecs, such as a faster LZ4 or Zstandard
+ * one, are added with {@link #register} or found on the classpath through a
+ * {@code META-INF/services/sales.util.InputCodec} entry.
+ *
+ * <p>Compressed files are decoded on a thread of their own through a {@link ReadAheadInputStream},
+ * so decompression and parsing overlap. Those threads are made by the factory set with
+ * {@link #setThreadFactory}, such as one that accounts for what they allocate.</p>
+ */
+public final class InputCodecs {
+    /** Bytes decoded ahead of the reader in each chunk. */
+    private static final int CHUNK_SIZE = 256 * 1024;
+    /** Decoded chunks that may wait for the reader. */
+    private static final int CHUNKS_AHEAD = 4;
+
+    public static final InputCodec GZIP = new InputCodec() {
+        @Override
+        public String getExtension() {
+            return ".gz";
+        }
+
+        @Override
+        public InputStream decode(InputStream in) throws IOException {
+            return new GZIPInputStream(in, 64 * 1024);
+        }
+    };
+
+    private static final List<InputCodec> CODECS = new CopyOnWriteArrayList<>();
+    private static volatile ThreadFactory threads = Thread::new;
+
+    static {
+        CODECS.add(GZIP);
+        for (InputCodec codec : ServiceLoader.load(InputCodec.class)) {
+            register(codec);
+        }
+    }
+
+    private InputCodecs() {
+    }
+
+    /**
+     * Adds a codec. A codec registered later takes precedence over earlier ones with the same
+     * extension.
+     *
+     * @param codec The codec to add.
+     */
+    public static void register(InputCodec codec) {
+        CODECS.add(0, codec);
+    }
+
+    /**
+     * Sets the factory of the threads that decode compressed files ahead of their readers.
+     *
+     * @param factory The thread factory; plain threads are made until one is set.
+     */
+    public static void setThreadFactory(ThreadFactory factory) {
+        threads = factory;
+    }
+
+    /**
+     * Returns the codec for a file name.
+     *
+     * @param fileName The file name.
+     * @return The codec whose extension ends the name, or null if the file is not compressed.
+     */
+    public static InputCodec forFile(String fileName) {
+        for (InputCodec codec : CODECS) {
+            if (fileName.endsWith(codec.getExtension())) {
+                return codec;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns a file name without the extension of its codec.
+     *
+     * @param fileName The file name.
+     * @return The name of the uncompressed file, or the name itself if it is not compressed.
+     */
+    public static String stripExtension(String fileName) {
+        InputCodec codec = forFile(fileName);
+        return codec == null ? fileName : fileName.substring(0, fileName.length() - codec.getExtension().length());
+    }
+
+    /**
+     * Finds an input file either as it is or compressed with one of the codecs.
+     *
+     * @param directory The directory of the file.
+     * @param fileName The name of the uncompressed file.
+     * @return The uncompressed file if it exists, else the first compressed one that exists,
+     *         else the uncompressed file.
+     */
+    public static File find(String directory, String fileName) {
+        File file = new File(directory, fileName);
+        if (file.exists()) {
+            return file;
+        }
+        for (InputCodec codec : CODECS) {
+            File compressed = new File(directory, fileName + codec.getExtension());
+            if (compressed.exists()) {
+                return compressed;
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Opens a file for reading, decoding it if its name ends with the extension of a codec.
+     * A compressed file is decoded ahead of the reader on a background thread.
+     *
+     * @param file The file to open.
+     * @return The decoded bytes of the file.
+     * @throws IOException If the file cannot be opened or its codec does not recognize it.
+     */
+    public static InputStream open(File file) throws IOException {
+        InputCodec codec = forFile(file.getName());
+        InputStream in = new FileInputStream(file);
+        if (codec == null) {
+            return in;
+        }
+        try {
+            return new ReadAheadInputStream(codec.decode(new BufferedInputStream(in, 64 * 1024)),
+                                            CHUNK_SIZE, CHUNKS_AHEAD, "descompresion-" + file.getName(), threads);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package sales.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The IntColumn class is the int counterpart of {@link LongColumn}: a growable column of
+ * int values held in a direct ByteBuffer. New slots read as 0.
+ */
+public class IntColumn {
+    private static final int WIDTH = Integer.BYTES;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE / WIDTH;
+
+    private ByteBuffer buffer;
+
+    /**
+     * Constructs an IntColumn with room for the given number of values.
+     *
+     * @param capacity The initial capacity.
+     */
+    public IntColumn(int capacity) {
+        buffer = allocate(Math.max(1, capacity));
+    }
+
+    public int get(int index) {
+        return buffer.getInt(index * WIDTH);
+    }
+
+    public void set(int index, int value) {
+        buffer.putInt(index * WIDTH, value);
+    }
+
+    /**
+     * Makes sure the column can hold at least the given number of values, growing it
+     * geometrically if needed.
+     *
+     * @param capacity The number of values required.
+     * @throws IllegalStateException If the column cannot grow that large.
+     */
+    public void ensureCapacity(int capacity) {
+        int current = buffer.capacity() / WIDTH;
+        if (capacity <= current) {
+            return;
+        }
+        if (capacity > MAX_CAPACITY) {
+            throw new IllegalStateException("Columna demasiado grande: " + capacity);
+        }
+        ByteBuffer grown = allocate((int) Math.min(MAX_CAPACITY, Math.max(capacity, current * 2L)));
+        ByteBuffer old = buffer.duplicate();
+        old.clear();
+        grown.put(old);
+        buffer = grown;
+    }
+
+    private static ByteBuffer allocate(int capacity) {
+        return ByteBuffer.allocateDirect(capacity * WIDTH).order(ByteOrder.nativeOrder());
+    }
+}
@@ -0,0 +1,59 @@
+package sales.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The LongColumn class is a growable column of long values held off the heap in a direct
+ * ByteBuffer, so that millions of values cost neither object headers nor GC scanning.
+ * Values are addressed by index; new slots read as 0.
+ */
+public class LongColumn {
+    private static final int WIDTH = Long.BYTES;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE / WIDTH;
+
+    private ByteBuffer buffer;
+
+    /**
+     * Constructs a LongColumn with room for the given number of values.
+     *
+     * @param capacity The initial capacity.
+     */
+    public LongColumn(int capacity) {
+        buffer = allocate(Math.max(1, capacity));
+    }
+
+    public long get(int index) {
+        return buffer.getLong(index * WIDTH);
+    }
+
+    public void set(int index, long value) {
+        buffer.putLong(index * WIDTH, value);
+    }
+
+    /**
+     * Makes sure the column can hold at least the given number of values, growing it
+     * geometrically if needed.
+     *
+     * @param capacity The number of values required.
+     * @throws IllegalStateException If the column cannot grow that large.
+     */
+    public void ensureCapacity(int capacity) {
+        int current = buffer.capacity() / WIDTH;
+        if (capacity <= current) {
+            return;
+        }
+        if (capacity > MAX_CAPACITY) {
+            throw new IllegalStateException("Columna demasiado grande: " + capacity);
+        }
+        ByteBuffer grown = allocate((int) Math.min(MAX_CAPACITY, Math.max(capacity, current * 2L)));
+        ByteBuffer old = buffer.duplicate();
+        old.clear();
+        grown.put(old);
+        buffer = grown;
+    }
+
+    private static ByteBuffer allocate(int capacity) {
+        return ByteBuffer.allocateDirect(capacity * WIDTH).order(ByteOrder.nativeOrder());
+    }
+}
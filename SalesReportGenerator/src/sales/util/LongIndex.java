@@ -0,0 +1,98 @@
+package sales.util;
+
+import java.util.Arrays;
+
+/**
+ * The LongIndex class maps long keys to int slots with open addressing over primitive
+ * arrays. It grows as keys are added and never removes them.
+ */
+public class LongIndex {
+    /** Slot returned for keys that are not in the index. */
+    public static final int NOT_FOUND = -1;
+
+    private long[] keys;
+    private int[] slots;
+    private int size;
+
+    /**
+     * Constructs a LongIndex sized for the given number of keys.
+     *
+     * @param expectedKeys The number of keys expected.
+     */
+    public LongIndex(int expectedKeys) {
+        allocate(Integer.highestOneBit(Math.max(2, expectedKeys) * 2 - 1) << 1);
+    }
+
+    /**
+     * Returns the slot of the given key.
+     *
+     * @param key The key.
+     * @return The slot, or {@link #NOT_FOUND} if the key was never added.
+     */
+    public int get(long key) {
+        int mask = keys.length - 1;
+        int pos = hash(key) & mask;
+        int slot;
+        while ((slot = slots[pos]) != NOT_FOUND) {
+            if (keys[pos] == key) {
+                return slot;
+            }
+            pos = (pos + 1) & mask;
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Adds a key with the given slot unless the key is already present, in which case the
+     * existing slot is kept.
+     *
+     * @param key The key.
+     * @param slot The slot, which must not be negative.
+     * @return true if the key was added.
+     */
+    public boolean putIfAbsent(long key, int slot) {
+        if ((size + 1) * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int pos = hash(key) & mask;
+        while (slots[pos] != NOT_FOUND) {
+            if (keys[pos] == key) {
+                return false;
+            }
+            pos = (pos + 1) & mask;
+        }
+        keys[pos] = key;
+        slots[pos] = slot;
+        size++;
+        return true;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldSlots = slots;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldSlots[i] != NOT_FOUND) {
+                int pos = hash(oldKeys[i]) & mask;
+                while (slots[pos] != NOT_FOUND) {
+                    pos = (pos + 1) & mask;
+                }
+                keys[pos] = oldKeys[i];
+                slots[pos] = oldSlots[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        slots = new int[capacity];
+        Arrays.fill(slots, NOT_FOUND);
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,94 @@
+package sales.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * The LruCache class is a map whose entries together weigh at most a fixed capacity and that,
+ * when full, drops the entries that were least recently read or written. Each entry weighs 1
+ * unless a weigher is given, so the capacity can bound the number of entries or, for
+ * instance, the total length of cached strings. It keeps its entries in a LinkedHashMap in
+ * access order, so lookups and updates stay constant-time. It is not thread-safe.
+ *
+ * @param <K> The type of the keys.
+ * @param <V> The type of the values.
+ */
+public class LruCache<K, V> {
+    private final LinkedHashMap<K, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final long capacity;
+    private final ToLongFunction<? super V> weigher;
+    private long weight;
+
+    /**
+     * Constructs an empty LruCache bounded by its number of entries.
+     *
+     * @param capacity The maximum number of entries.
+     */
+    public LruCache(int capacity) {
+        this(capacity, value -> 1);
+    }
+
+    /**
+     * Constructs an empty LruCache bounded by the total weight of its values.
+     *
+     * @param capacity The maximum total weight.
+     * @param weigher The function that gives the weight of a value.
+     */
+    public LruCache(long capacity, ToLongFunction<? super V> weigher) {
+        this.capacity = capacity;
+        this.weigher = weigher;
+    }
+
+    /**
+     * Returns the value cached for a key and marks it as the most recently used.
+     *
+     * @param key The key.
+     * @return The value, or null if the key is not cached.
+     */
+    public V get(K key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Caches a value, dropping the least recently used entries until the total weight fits
+     * the capacity again. A value that weighs more than the whole capacity is not cached.
+     *
+     * @param key The key.
+     * @param value The value.
+     */
+    public void put(K key, V value) {
+        long valueWeight = weigher.applyAsLong(value);
+        V previous = valueWeight > capacity ? entries.remove(key) : entries.put(key, value);
+        if (previous != null) {
+            weight -= weigher.applyAsLong(previous);
+        }
+        if (valueWeight > capacity) {
+            return;
+        }
+        weight += valueWeight;
+        Iterator<V> eldest = entries.values().iterator();
+        while (weight > capacity) {
+            weight -= weigher.applyAsLong(eldest.next());
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Returns the number of cached entries.
+     *
+     * @return The number of entries.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the total weight of the cached values.
+     *
+     * @return The total weight.
+     */
+    public long weight() {
+        return weight;
+    }
+}
@@ -0,0 +1,65 @@
+package sales.util;
+
+/**
+ * The Money class provides exact arithmetic on amounts held as long cents. Integer addition
+ * is associative, so totals reduced in any order or merged from any number of partial sums
+ * are identical; overflow is detected instead of silently wrapping.
+ */
+public final class Money {
+
+    private Money() {
+    }
+
+    /**
+     * Adds two amounts.
+     *
+     * @param cents The first amount in cents.
+     * @param otherCents The second amount in cents.
+     * @return The sum in cents.
+     * @throws ArithmeticException If the sum overflows a long.
+     */
+    public static long add(long cents, long otherCents) {
+        long sum = cents + otherCents;
+        if (((cents ^ sum) & (otherCents ^ sum)) < 0) {
+            throw overflow();
+        }
+        return sum;
+    }
+
+    /**
+     * Multiplies a unit price by a quantity.
+     *
+     * @param priceCents The unit price in cents.
+     * @param quantity The number of units.
+     * @return The total amount in cents.
+     * @throws ArithmeticException If the product overflows a long.
+     */
+    public static long multiply(long priceCents, long quantity) {
+        try {
+            return Math.multiplyExact(priceCents, quantity);
+        } catch (ArithmeticException e) {
+            throw overflow();
+        }
+    }
+
+    /**
+     * Divides an amount by a count, rounding half up to the nearest cent. This is used to
+     * obtain average prices.
+     *
+     * @param cents The amount in cents.
+     * @param count The divisor, which must be positive.
+     * @return The rounded quotient in cents.
+     */
+    public static long divide(long cents, long count) {
+        long quotient = cents / count;
+        long remainder = Math.abs(cents % count);
+        if (remainder >= count - remainder) {
+            quotient += cents < 0 ? -1 : 1;
+        }
+        return quotient;
+    }
+
+    private static ArithmeticException overflow() {
+        return new ArithmeticException("Desbordamiento en el clculo de importes");
+    }
+}
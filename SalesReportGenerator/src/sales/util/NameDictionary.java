@@ -0,0 +1,53 @@
+package sales.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The NameDictionary class assigns small consecutive int codes to names, in order of first
+ * appearance. Every occurrence of a name maps to the same code and the same String instance,
+ * so a catalog with many products but few distinct names holds each name only once and can
+ * be grouped by name with arrays indexed by code.
+ */
+public class NameDictionary {
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    /**
+     * Returns the code of the given name, assigning the next free code if it is new.
+     *
+     * @param name The name to encode.
+     * @return The code of the name, from 0 to {@link #size()} - 1.
+     */
+    public int encode(String name) {
+        Integer code = codes.get(name);
+        if (code == null) {
+            code = names.size();
+            codes.put(name, code);
+            names.add(name);
+        }
+        return code;
+    }
+
+    /**
+     * Returns the name with the given code.
+     *
+     * @param code A code returned by {@link #encode(String)}.
+     * @return The shared instance of the name.
+     * @throws IndexOutOfBoundsException If the code was never assigned.
+     */
+    public String decode(int code) {
+        return names.get(code);
+    }
+
+    /**
+     * Returns the number of distinct names encoded.
+     *
+     * @return The number of codes assigned.
+     */
+    public int size() {
+        return names.size();
+    }
+}
@@ -0,0 +1,190 @@
+package sales.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * The ReadAheadInputStream class reads another stream on a background thread, a fixed number
+ * of chunks ahead of its reader. When the other stream does real work per byte, such as
+ * decompressing, that work overlaps with whatever the reader does with the bytes. Chunks are
+ * handed over through a bounded queue and returned for reuse once read, so memory stays at
+ * {@code chunksAhead + 2} chunks however long the stream is.
+ */
+public class ReadAheadInputStream extends InputStream {
+    private static final Chunk END = new Chunk(0);
+
+    private final BlockingQueue<Chunk> filled;
+    private final BlockingQueue<Chunk> free;
+    private final Thread producer;
+    private volatile Throwable failure;
+    private Chunk current;
+    private int position;
+    private boolean ended;
+
+    /**
+     * Constructs a ReadAheadInputStream and starts reading the given stream.
+     *
+     * @param in The stream to read ahead; it is closed when it ends or this stream is closed.
+     * @param chunkSize The number of bytes read ahead in each chunk.
+     * @param chunksAhead The number of chunks that may wait to be read.
+     * @param threadName The name of the background thread.
+     */
+    public ReadAheadInputStream(InputStream in, int chunkSize, int chunksAhead, String threadName) {
+        this(in, chunkSize, chunksAhead, threadName, Thread::new);
+    }
+
+    /**
+     * Constructs a ReadAheadInputStream that reads the given stream on a thread made by the
+     * given factory.
+     *
+     * @param in The stream to read ahead; it is closed when it ends or this stream is closed.
+     * @param chunkSize The number of bytes read ahead in each chunk.
+     * @param chunksAhead The number of chunks that may wait to be read.
+     * @param threadName The name of the background thread.
+     * @param threads The factory of the background thread.
+     */
+    public ReadAheadInputStream(InputStream in, int chunkSize, int chunksAhead, String threadName,
+                                ThreadFactory threads) {
+        filled = new ArrayBlockingQueue<>(chunksAhead + 1);
+        free = new ArrayBlockingQueue<>(chunksAhead + 2);
+        for (int i = 0; i < chunksAhead + 2; i++) {
+            free.add(new Chunk(chunkSize));
+        }
+        producer = threads.newThread(() -> fill(in));
+        producer.setName(threadName);
+        producer.setDaemon(true);
+        producer.start();
+    }
+
+    /**
+     * Reads the other stream into chunks until it ends or fails. Any failure, not only an
+     * IOException, is kept for the reader, and the end is always signalled, so the reader
+     * never waits for chunks that will not come.
+     */
+    private void fill(InputStream in) {
+        boolean interrupted = false;
+        try (InputStream source = in) {
+            while (true) {
+                Chunk chunk = free.take();
+                chunk.length = 0;
+                int n;
+                while (chunk.length < chunk.data.length
+                        && (n = source.read(chunk.data, chunk.length, chunk.data.length - chunk.length)) >= 0) {
+                    chunk.length += n;
+                }
+                if (chunk.length == 0) {
+                    break;
+                }
+                filled.put(chunk);
+                if (chunk.length < chunk.data.length) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            // Closed by the reader, which no longer waits for chunks
+            interrupted = true;
+        } catch (Throwable e) {
+            failure = e;
+        } finally {
+            if (!interrupted) {
+                try {
+                    filled.put(END);
+                } catch (InterruptedException e) {
+                    // Closed by the reader
+                }
+            }
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!next()) {
+            return -1;
+        }
+        return current.data[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!next()) {
+            return -1;
+        }
+        int n = Math.min(len, current.length - position);
+        System.arraycopy(current.data, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return current == null ? 0 : current.length - position;
+    }
+
+    /**
+     * Makes {@link #current} a chunk with unread bytes, waiting for the background thread
+     * if needed.
+     *
+     * @return false at the end of the stream.
+     */
+    private boolean next() throws IOException {
+        if (current != null && position < current.length) {
+            return true;
+        }
+        if (ended) {
+            return false;
+        }
+        if (current != null) {
+            free.add(current);
+            current = null;
+        }
+        Chunk chunk;
+        try {
+            chunk = filled.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Lectura interrumpida");
+        }
+        if (chunk == END) {
+            ended = true;
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            } else if (failure != null) {
+                throw new IOException("Error al leer por adelantado: " + failure, failure);
+            }
+            return false;
+        }
+        current = chunk;
+        position = 0;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        ended = true;
+        current = null;
+        producer.interrupt();
+        try {
+            producer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Chunk {
+        final byte[] data;
+        int length;
+
+        Chunk(int size) {
+            data = new byte[size];
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package sales.report.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import sales.report.generator.ColumnarSalesWriter;
+
+public class ColumnarSalesReaderTest {
+    private static final long MODIFIED = 1_600_000_000_000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void columnarFileIsCurrentWhileTheTextFileHasTheRecordedSizeAndTime() throws IOException {
+        File text = writeText("1;2;3\n");
+        File columnar = folder.newFile("Vendedor_1.col");
+        try (ColumnarSalesWriter writer = new ColumnarSalesWriter(columnar, text.length(), text.lastModified())) {
+            writer.write(1, 2, 3);
+        }
+        columnar.setLastModified(MODIFIED);
+        assertTrue(ColumnarSalesReader.isCurrent(columnar, text));
+
+        // Rewritten within the same second of a coarse clock: same time, different size
+        Files.write(text.toPath(), "N\n1;2;30\n".getBytes(StandardCharsets.ISO_8859_1));
+        text.setLastModified(MODIFIED);
+        assertFalse(ColumnarSalesReader.isCurrent(columnar, text));
+    }
+
+    @Test
+    public void columnarFileWithoutSourceMustBeStrictlyNewer() throws IOException {
+        File text = writeText("1;2;3\n");
+        File columnar = folder.newFile("Vendedor_1.col");
+        try (ColumnarSalesWriter writer = new ColumnarSalesWriter(columnar)) {
+            writer.write(1, 2, 3);
+        }
+
+        columnar.setLastModified(MODIFIED);
+        assertFalse(ColumnarSalesReader.isCurrent(columnar, text));
+        columnar.setLastModified(MODIFIED + 1000);
+        assertTrue(ColumnarSalesReader.isCurrent(columnar, text));
+    }
+
+    @Test
+    public void writtenSalesAreReadBackInBlocks() throws IOException {
+        File columnar = folder.newFile("Vendedor_1.col");
+        try (ColumnarSalesWriter writer = new ColumnarSalesWriter(columnar, 2)) {
+            writer.write(1, 2, 3);
+            writer.write(1, 4, 5);
+            writer.write(1, 6, 7);
+        }
+
+        assertEquals(Arrays.asList("1;2;3", "1;4;5", "1;6;7"), read(columnar));
+    }
+
+    private File writeText(String lines) throws IOException {
+        File text = folder.newFile("Vendedor_1.txt");
+        Files.write(text.toPath(), ("NmeroDocumentoVendedor;IDProducto;CantidadProductoVendido\n" + lines)
+                .getBytes(StandardCharsets.ISO_8859_1));
+        text.setLastModified(MODIFIED);
+        return text;
+    }
+
+    private static List<String> read(File columnar) throws IOException {
+        List<String> sales = new ArrayList<>();
+        new ColumnarSalesReader().parse(columnar.toPath(),
+                (document, productId, quantity) -> sales.add(document + ";" + productId + ";" + quantity));
+        return sales;
+    }
+}
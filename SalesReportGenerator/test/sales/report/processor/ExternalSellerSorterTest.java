@@ -0,0 +1,84 @@
+package sales.report.processor;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import sales.report.model.Seller;
+import sales.report.model.SellerStore;
+
+public class ExternalSellerSorterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void externalRankingEqualsStableInMemoryRanking() throws IOException {
+        SellerStore store = storeWithTies(1000);
+        List<String> expected = rankInMemory(store);
+
+        // Everything in memory, a few runs, and more runs than one merge pass takes
+        for (int budget : new int[] {5000, 1000, 999, 300, 7, 3, 1}) {
+            assertEquals("budget " + budget, expected, rankExternally(store, budget));
+        }
+    }
+
+    @Test
+    public void runFilesAreDeletedOnClose() throws IOException {
+        SellerStore store = storeWithTies(200);
+        File runs = folder.newFolder();
+
+        try (ExternalSellerSorter sorter = new ExternalSellerSorter(store, 2, runs)) {
+            for (int slot = 0; slot < store.size(); slot++) {
+                sorter.add(slot);
+            }
+            sorter.forEachSorted(seller -> { });
+        }
+
+        assertEquals(0, runs.list().length);
+    }
+
+    // Few distinct totals, so most sellers tie with many others and ranking order depends on stability
+    private static SellerStore storeWithTies(int sellers) {
+        SellerStore store = new SellerStore(16);
+        Random random = new Random(sellers);
+        for (int i = 0; i < sellers; i++) {
+            int slot = store.add("CC", 1000 + i, "Nombre" + i, "Apellido" + i);
+            store.addSale(slot, random.nextInt(20) * 125L);
+        }
+        return store;
+    }
+
+    private static List<String> rankInMemory(SellerStore store) {
+        List<Seller> sellers = new ArrayList<>(store.asList());
+        sellers.sort(Comparator.comparingLong(Seller::getTotalSalesCents).reversed());
+        List<String> rows = new ArrayList<>();
+        for (Seller seller : sellers) {
+            rows.add(row(seller));
+        }
+        return rows;
+    }
+
+    private List<String> rankExternally(SellerStore store, int budget) throws IOException {
+        List<String> rows = new ArrayList<>();
+        try (ExternalSellerSorter sorter = new ExternalSellerSorter(store, budget, folder.getRoot())) {
+            for (int slot = 0; slot < store.size(); slot++) {
+                sorter.add(slot);
+            }
+            sorter.forEachSorted(seller -> rows.add(row(seller)));
+        }
+        return rows;
+    }
+
+    private static String row(Seller seller) {
+        return seller.getDocumentType() + ";" + seller.getDocumentNumber() + ";" + seller.getFullName()
+                + ";" + seller.getTotalSalesCents();
+    }
+}
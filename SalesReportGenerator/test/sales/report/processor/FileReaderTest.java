@@ -0,0 +1,161 @@
+package sales.report.processor;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import sales.report.model.Product;
+import sales.report.model.ProductStore;
+import sales.report.model.Seller;
+import sales.report.model.SellerStore;
+
+public class FileReaderTest {
+    private static final int SELLERS = 40;
+    private static final int PRODUCTS = 25;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void parallelReadingGivesTheTotalsOfSequentialReading() throws IOException {
+        File[] files = writeSalesFiles(SELLERS + 3, 200);
+
+        String sequential = aggregate(files, 1, false);
+        assertEquals(sequential, aggregate(files, 4, false));
+        assertEquals(sequential, aggregate(files, 3, true));
+    }
+
+    @Test
+    public void parallelReadingOfFewerFilesThanThreadsGivesTheSameTotals() throws IOException {
+        File[] files = writeSalesFiles(2, 500);
+
+        assertEquals(aggregate(files, 1, false), aggregate(files, 8, false));
+    }
+
+    @Test
+    public void largeFileReadInRangesGivesTheTotalsOfSequentialReading() throws IOException {
+        // Plain files are split from 16 MB, twice the smallest range; this one makes three ranges
+        File file = new File(folder.getRoot(), "Vendedor_7.txt");
+        Random random = new Random(7);
+        try (Writer out = Files.newBufferedWriter(file.toPath(), StandardCharsets.ISO_8859_1)) {
+            out.write(SalesLines.HEADER);
+            out.write('\n');
+            while (Files.size(file.toPath()) < 25L * 1024 * 1024) {
+                for (int i = 0; i < 100_000; i++) {
+                    out.write(SalesLines.random(random, 7, PRODUCTS));
+                    out.write('\n');
+                }
+                out.flush();
+            }
+        }
+        File[] files = {file};
+
+        String sequential = aggregate(files, 1, false);
+        assertEquals(sequential, aggregate(files, 3, false));
+        assertEquals(sequential, aggregate(files, 4, true));
+    }
+
+    // Reads the files into fresh sellers and products, and describes their totals, the
+    // statistics and the rejected lines
+    private static String aggregate(File[] files, int threads, boolean offHeap) throws IOException {
+        List<Seller> sellers;
+        List<Product> products;
+        Aggregator aggregator;
+        if (offHeap) {
+            SellerStore sellerStore = new SellerStore(16);
+            ProductStore productStore = new ProductStore(16);
+            for (int i = 1; i <= SELLERS; i++) {
+                sellerStore.add("CC", i, "Nombre" + i, "Apellido" + i);
+            }
+            for (int i = 1; i <= PRODUCTS; i++) {
+                productStore.add(i, "Producto" + (i % 7), 1000L * i + 99);
+            }
+            sellers = sellerStore.asList();
+            products = productStore.asList();
+            aggregator = new StoreAggregator(sellerStore, productStore);
+        } else {
+            sellers = new ArrayList<>();
+            products = new ArrayList<>();
+            for (int i = 1; i <= SELLERS; i++) {
+                sellers.add(new Seller("CC", i, "Nombre" + i, "Apellido" + i));
+            }
+            for (int i = 1; i <= PRODUCTS; i++) {
+                products.add(new Product(i, "Producto" + (i % 7), 1000L * i + 99));
+            }
+            aggregator = new SalesAggregator(sellers, products);
+        }
+        ReadStats stats = new ReadStats();
+        Quarantine quarantine = Quarantine.recording();
+        FileReader.aggregateSales(files, threads, aggregator, stats, quarantine);
+        return describe(sellers, products, stats, quarantine);
+    }
+
+    private static String describe(List<Seller> sellers, List<Product> products, ReadStats stats, Quarantine quarantine) {
+        StringBuilder text = new StringBuilder();
+        for (Seller seller : sellers) {
+            text.append(seller.getDocumentNumber()).append('=').append(seller.getTotalSalesCents()).append('\n');
+        }
+        for (Product product : products) {
+            text.append(product.getId()).append('x').append(product.getSoldQuantity()).append('\n');
+        }
+        text.append(stats.getBytes()).append(' ').append(stats.getLines()).append(' ')
+            .append(stats.getRejected()).append('\n');
+        // Files read side by side reach the quarantine in any order; the stable sort keeps the
+        // order of the lines of each file, which must be their order in the file
+        List<Quarantine.Rejection> rejections = quarantine.getRejections();
+        rejections.sort(Comparator.comparing(rejection -> rejection.source));
+        for (Quarantine.Rejection rejection : rejections) {
+            text.append(rejection.source).append(':').append(rejection.line).append(':')
+                .append(rejection.reason).append('\n');
+        }
+        return text.toString();
+    }
+
+    private File[] writeSalesFiles(int count, int lines) throws IOException {
+        Random random = new Random(count * 31L + lines);
+        File[] files = new File[count];
+        for (int f = 0; f < count; f++) {
+            // Sellers past the catalog's make files of unknown sales only
+            long document = f + 1;
+            StringBuilder content = new StringBuilder(SalesLines.HEADER).append('\n');
+            for (int i = 0; i < lines; i++) {
+                content.append(SalesLines.random(random, document, PRODUCTS)).append('\n');
+            }
+            files[f] = new File(folder.getRoot(), "Vendedor_" + document + ".txt");
+            Files.write(files[f].toPath(), content.toString().getBytes(StandardCharsets.ISO_8859_1));
+        }
+        return files;
+    }
+
+    // Random lines of a sales file: mostly valid, a few malformed, a few of an unknown product
+    private static final class SalesLines {
+        static final String HEADER = "NmeroDocumentoVendedor;IDProducto;CantidadProductoVendido";
+
+        private SalesLines() {
+        }
+
+        static String random(Random random, long document, int products) {
+            switch (random.nextInt(50)) {
+                case 0:
+                    return document + ";" + (random.nextInt(products) + 1);
+                case 1:
+                    return document + ";x;" + random.nextInt(10);
+                case 2:
+                    return document + ";" + (products + 1) + ";1";
+                default:
+                    return document + ";" + (random.nextInt(products) + 1) + ";" + (random.nextInt(10) + 1)
+                            + (random.nextInt(4) == 0 ? "\r" : "");
+            }
+        }
+    }
+}
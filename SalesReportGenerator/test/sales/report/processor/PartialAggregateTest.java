@@ -0,0 +1,55 @@
+package sales.report.processor;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import sales.report.model.Product;
+import sales.report.model.Seller;
+
+public class PartialAggregateTest {
+    private static final long FINGERPRINT = 42;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void writtenPartialIsReadBackWithItsRejections() throws IOException {
+        List<Seller> sellers = Arrays.asList(new Seller("CC", 1, "Juan", "Garcia"), new Seller("CC", 2, "Ana", "Ruiz"));
+        List<Product> products = Arrays.asList(new Product(10, "Laptop", 150000L), new Product(20, "Tablet", 45050L));
+        sellers.get(0).addSale(300100L);
+        products.get(0).incrementSoldQuantity(2);
+        List<Quarantine.Rejection> rejections = Arrays.asList(
+                new Quarantine.Rejection("Vendedor_1.txt", 3, RejectReason.FIELD_COUNT, "1;10"),
+                new Quarantine.Rejection("Vendedor_7.txt", 2, RejectReason.UNKNOWN_SELLER, "7;10;1"));
+        File file = new File(folder.getRoot(), "parcial_1_de_2.bin");
+        PartialAggregate.of(1, 2, FINGERPRINT, sellers, products, rejections).write(file);
+
+        PartialAggregate partial = PartialAggregate.read(file, 1, 2, FINGERPRINT);
+        List<Seller> merged = Arrays.asList(new Seller("CC", 1, "Juan", "Garcia"), new Seller("CC", 2, "Ana", "Ruiz"));
+        List<Product> mergedProducts = Arrays.asList(new Product(10, "Laptop", 150000L), new Product(20, "Tablet", 45050L));
+        partial.applyTo(new SellerIndex(merged), new ProductIndex(mergedProducts));
+        Quarantine quarantine = Quarantine.recording();
+        quarantine.replay(partial.getRejections());
+
+        assertEquals(300100L, merged.get(0).getTotalSalesCents());
+        assertEquals(0L, merged.get(1).getTotalSalesCents());
+        assertEquals(2L, mergedProducts.get(0).getSoldQuantity());
+        assertEquals(Arrays.asList("Vendedor_1.txt:3:FIELD_COUNT:1;10", "Vendedor_7.txt:2:UNKNOWN_SELLER:7;10;1"),
+                describe(quarantine.getRejections()));
+    }
+
+    private static List<String> describe(List<Quarantine.Rejection> rejections) {
+        List<String> lines = new ArrayList<>();
+        for (Quarantine.Rejection rejection : rejections) {
+            lines.add(rejection.source + ":" + rejection.line + ":" + rejection.reason + ":" + rejection.text);
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,65 @@
+package sales.report.processor;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import sales.report.model.Product;
+import sales.util.CsvWriter;
+
+public class ReportGeneratorTest {
+
+    @Test
+    public void productsWithTiedQuantitiesAreRankedByName() throws IOException {
+        // Name codes in first-seen order, which is not the order of the names
+        List<Product> products = Arrays.asList(
+            sold(new Product(1, "Tablet", 0, 30000), 5),
+            sold(new Product(2, "Laptop", 1, 90000), 5),
+            sold(new Product(3, "Monitor", 2, 40000), 8),
+            sold(new Product(4, "Cmara", 3, 25000), 5));
+
+        assertEquals(Arrays.asList("Monitor", "Cmara", "Laptop", "Tablet"), rankedNames(products, 0));
+        assertEquals(Arrays.asList("Monitor", "Cmara"), rankedNames(products, 2));
+    }
+
+    @Test
+    public void groupingByNameRanksTiesAsGroupingByCode() throws IOException {
+        List<Product> encoded = Arrays.asList(
+            sold(new Product(1, "Tablet", 0, 30000), 5),
+            sold(new Product(2, "Laptop", 1, 90000), 3),
+            sold(new Product(3, "Laptop", 1, 80000), 2),
+            sold(new Product(4, "Auriculares", 2, 5000), 5));
+        List<Product> plain = Arrays.asList(
+            sold(new Product(1, "Tablet", 30000L), 5),
+            sold(new Product(2, "Laptop", 90000L), 3),
+            sold(new Product(3, "Laptop", 80000L), 2),
+            sold(new Product(4, "Auriculares", 5000L), 5));
+
+        List<String> expected = Arrays.asList("Auriculares", "Laptop", "Tablet");
+        assertEquals(expected, rankedNames(encoded, 0));
+        assertEquals(expected, rankedNames(plain, 0));
+    }
+
+    private static Product sold(Product product, long quantity) {
+        product.incrementSoldQuantity(quantity);
+        return product;
+    }
+
+    // Writes the products as a query answer and returns the names of its rows, in order
+    private static List<String> rankedNames(List<Product> products, int limit) throws IOException {
+        StringWriter out = new StringWriter();
+        try (CsvWriter writer = new CsvWriter(out)) {
+            ReportGenerator.writeProducts(writer, products, 0, limit);
+        }
+        List<String> names = new ArrayList<>();
+        String[] lines = out.toString().split("\\R");
+        for (int i = 1; i < lines.length; i++) {
+            names.add(lines[i].substring(0, lines[i].indexOf(';')));
+        }
+        return names;
+    }
+}
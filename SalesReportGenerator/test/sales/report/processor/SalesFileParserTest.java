@@ -0,0 +1,205 @@
+package sales.report.processor;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SalesFileParserTest {
+    private static final String HEADER = "NmeroDocumentoVendedor;IDProducto;CantidadProductoVendido";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void crlfLineEndingsAreStripped() throws IOException {
+        Parsed parsed = parse(HEADER + "\r\n1;2;3\r\n4;5;6\r\n7;8;9");
+
+        assertEquals(Arrays.asList("1;2;3", "4;5;6", "7;8;9"), parsed.sales);
+        assertEquals(Collections.emptyList(), parsed.rejections);
+    }
+
+    @Test
+    public void crlfLineEndingsAreStrippedAcrossMappingWindows() throws IOException {
+        File file = write(HEADER + "\r\n1;2;3\r\n4;5;6\r\n7;8;9\r\n");
+        Parsed parsed = new Parsed();
+        Quarantine quarantine = Quarantine.recording();
+        // Windows much shorter than the file, so most lines start in one window and end in the next
+        new SalesFileParser(HEADER.length() + 4).parseRange(file.toPath(), 0, file.length(), parsed,
+                parsed.stats, quarantine.source(file.getName()));
+        parsed.record(quarantine);
+
+        assertEquals(Arrays.asList("1;2;3", "4;5;6", "7;8;9"), parsed.sales);
+        assertEquals(Collections.emptyList(), parsed.rejections);
+    }
+
+    @Test
+    public void trailingSeparatorsAreIgnoredAsByStringSplit() throws IOException {
+        Parsed parsed = parse(HEADER + "\n1;2;3;\n4;5;6;;\r\n7;8;9;;;\n1;2;3;4\n;1;2;3\n");
+
+        assertEquals(Arrays.asList("1;2;3", "4;5;6", "7;8;9"), parsed.sales);
+        assertEquals(Arrays.asList("5:FIELD_COUNT:1;2;3;4", "6:FIELD_COUNT:;1;2;3"), parsed.rejections);
+    }
+
+    @Test
+    public void numbersThatOverflowTheirFieldAreInvalid() throws IOException {
+        Parsed parsed = parse(HEADER
+                + "\n9223372036854775807;2147483647;2147483647"
+                + "\n9223372036854775808;1;1"
+                + "\n99999999999999999999;1;1"
+                + "\n1;2147483648;1"
+                + "\n1;1;2147483648"
+                + "\n1;-2147483648;-2147483648"
+                + "\n1;-2147483649;1\n");
+
+        assertEquals(Arrays.asList("9223372036854775807;2147483647;2147483647", "1;-2147483648;-2147483648"),
+                parsed.sales);
+        assertEquals(Arrays.asList(
+                "3:INVALID_NUMBER:9223372036854775808;1;1",
+                "4:INVALID_NUMBER:99999999999999999999;1;1",
+                "5:INVALID_NUMBER:1;2147483648;1",
+                "6:INVALID_NUMBER:1;1;2147483648",
+                "8:INVALID_NUMBER:1;-2147483649;1"), parsed.rejections);
+    }
+
+    @Test
+    public void emptyAndShortLinesAreRejected() throws IOException {
+        Parsed parsed = parse(HEADER + "\n\n1;2;3\r\n\r\n1\n1;2\n1;;3\n;;\n");
+
+        assertEquals(Arrays.asList("1;2;3"), parsed.sales);
+        assertEquals(Arrays.asList(
+                "2:FIELD_COUNT:",
+                "4:FIELD_COUNT:",
+                "5:FIELD_COUNT:1",
+                "6:FIELD_COUNT:1;2",
+                "7:INVALID_NUMBER:1;;3",
+                "8:FIELD_COUNT:;;"), parsed.rejections);
+        assertEquals(7, parsed.stats.getLines());
+        assertEquals(6, parsed.stats.getRejected());
+    }
+
+    @Test
+    public void headerOnlyAndEmptyFilesHaveNoSales() throws IOException {
+        assertEquals(Collections.emptyList(), parse(HEADER).sales);
+        assertEquals(Collections.emptyList(), parse(HEADER + "\r\n").sales);
+        assertEquals(Collections.emptyList(), parse("").sales);
+        assertEquals(0, parse(HEADER + "\n").stats.getLines());
+    }
+
+    @Test
+    public void leadingPlusSignsAndZerosAreAccepted() throws IOException {
+        Parsed parsed = parse(HEADER + "\n+1;+2;+3\n007;08;0009\n0;00;-0\n+;1;1\n1;+-2;1\n1;2;3x\n");
+
+        assertEquals(Arrays.asList("1;2;3", "7;8;9", "0;0;0"), parsed.sales);
+        assertEquals(Arrays.asList(
+                "5:INVALID_NUMBER:+;1;1",
+                "6:INVALID_NUMBER:1;+-2;1",
+                "7:INVALID_NUMBER:1;2;3x"), parsed.rejections);
+    }
+
+    @Test
+    public void refusedSalesAreRejectedWithTheHandlersReason() throws IOException {
+        File file = write(HEADER + "\n1;2;3\n99;2;3\n");
+        Quarantine quarantine = Quarantine.recording();
+        List<String> sales = new ArrayList<>();
+        new SalesFileParser().parse(file.toPath(), new SaleHandler() {
+            @Override
+            public void onSale(long sellerDocumentNumber, int productId, int quantity) {
+                sales.add(sellerDocumentNumber + ";" + productId + ";" + quantity);
+            }
+
+            @Override
+            public RejectReason offerSale(long sellerDocumentNumber, int productId, int quantity) {
+                if (sellerDocumentNumber == 99) {
+                    return RejectReason.UNKNOWN_SELLER;
+                }
+                onSale(sellerDocumentNumber, productId, quantity);
+                return null;
+            }
+        }, new ReadStats(), quarantine);
+
+        assertEquals(Arrays.asList("1;2;3"), sales);
+        assertEquals(1, quarantine.getCount(RejectReason.UNKNOWN_SELLER));
+    }
+
+    @Test
+    public void rangesParseAsTheWholeFile() throws IOException {
+        StringBuilder content = new StringBuilder(HEADER).append("\r\n");
+        for (int i = 0; i < 500; i++) {
+            content.append(i % 37 == 0 ? "1;x;2" : i % 53 == 0 ? "1;2" : "1;" + i + ";" + (i % 9 + 1))
+                   .append(i % 3 == 0 ? "\r\n" : "\n");
+        }
+        content.append("1;7;7");
+        File file = write(content.toString());
+        Parsed whole = parse(content.toString());
+        byte[] bytes = Files.readAllBytes(file.toPath());
+
+        for (int ranges : new int[] {2, 7, 64}) {
+            Parsed parsed = new Parsed();
+            Quarantine quarantine = Quarantine.recording();
+            Quarantine.Source source = quarantine.source(file.getName());
+            long[] offsets = new SalesFileParser().split(file.toPath(), ranges);
+            assertEquals(0, offsets[0]);
+            assertEquals(file.length(), offsets[offsets.length - 1]);
+            long linesBefore = 0;
+            for (int r = 0; r + 1 < offsets.length; r++) {
+                if (r > 0) {
+                    // Every range but the first starts just after a line terminator
+                    assertEquals('\n', bytes[(int) offsets[r] - 1]);
+                }
+                Quarantine.Source part = source.part();
+                new SalesFileParser().parseRange(file.toPath(), offsets[r], offsets[r + 1], parsed, parsed.stats, part);
+                part.release(linesBefore);
+                linesBefore += part.getLine();
+            }
+            parsed.record(quarantine);
+
+            assertEquals(whole.sales, parsed.sales);
+            assertEquals(whole.rejections, parsed.rejections);
+            assertEquals(whole.stats.getLines(), parsed.stats.getLines());
+            assertEquals(file.length(), parsed.stats.getBytes());
+        }
+    }
+
+    private Parsed parse(String content) throws IOException {
+        File file = write(content);
+        Parsed parsed = new Parsed();
+        Quarantine quarantine = Quarantine.recording();
+        new SalesFileParser().parse(file.toPath(), parsed, parsed.stats, quarantine);
+        parsed.record(quarantine);
+        return parsed;
+    }
+
+    private File write(String content) throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.ISO_8859_1));
+        return file;
+    }
+
+    // The sales and rejected lines of one parse, as "document;product;quantity" and "line:REASON:text"
+    private static class Parsed implements SaleHandler {
+        final List<String> sales = new ArrayList<>();
+        final List<String> rejections = new ArrayList<>();
+        final ReadStats stats = new ReadStats();
+
+        @Override
+        public void onSale(long sellerDocumentNumber, int productId, int quantity) {
+            sales.add(sellerDocumentNumber + ";" + productId + ";" + quantity);
+        }
+
+        void record(Quarantine quarantine) {
+            for (Quarantine.Rejection rejection : quarantine.getRejections()) {
+                rejections.add(rejection.line + ":" + rejection.reason + ":" + rejection.text);
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package sales.report.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import sales.report.model.Product;
+import sales.report.model.Seller;
+
+public class SalesQueryServiceTest {
+
+    // A cached result is returned as the same string, a computed one as a new string
+    @Test
+    public void parameterOrderAndDefaultsShareACacheEntry() {
+        SalesQueryService service = published();
+
+        String sellers = service.query("vendedores?tipo=CC&top=2");
+        assertSame(sellers, service.query("vendedores?top=2&tipo=CC"));
+        assertSame(sellers, service.query("vendedores?top=2&&tipo=CC"));
+
+        String products = service.query("productos");
+        assertSame(products, service.query("productos?min=0"));
+        assertSame(products, service.query("productos?top=0&min=0"));
+    }
+
+    @Test
+    public void differentQueriesDoNotShareACacheEntry() {
+        SalesQueryService service = published();
+
+        String all = service.query("vendedores");
+        // An empty type is a type of its own, not a missing one
+        assertNotSame(all, service.query("vendedores?tipo="));
+        assertNotSame(all, service.query("vendedores?top=1"));
+        assertEquals(all, service.query("vendedores?top=3"));
+        assertNotSame(service.query("productos?min=1"), service.query("productos?min=2"));
+    }
+
+    private static SalesQueryService published() {
+        List<Seller> sellers = Arrays.asList(
+            new Seller("CC", 1, "Juan", "Garcia"),
+            new Seller("CE", 2, "Ana", "Ruiz"),
+            new Seller("CC", 3, "Luis", "Mora"));
+        sellers.get(0).addSale(500);
+        sellers.get(2).addSale(900);
+        List<Product> products = Arrays.asList(new Product(10, "Laptop", 150000L), new Product(20, "Tablet", 45050L));
+        products.get(0).incrementSoldQuantity(3);
+        SalesQueryService service = new SalesQueryService();
+        service.publish(sellers, products);
+        return service;
+    }
+}
@@ -0,0 +1,214 @@
+package sales.report.processor;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import sales.report.model.Product;
+import sales.report.model.Seller;
+
+public class SalesSnapshotTest {
+    private static final long CATALOG = 1;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private long modified = 1_600_000_000_000L;
+
+    @Test
+    public void addedChangedAndRemovedFilesGiveTheTotalsOfAFullRun() throws IOException {
+        File first = write(1, "1;10;2", "1;20;1", "1;30;5");
+        File second = write(2, "2;10;1", "bad", "2;20;4");
+        File third = write(3, "3;30;3");
+        SalesSnapshot snapshot = new SalesSnapshot();
+        File[] files = {first, second, third};
+        assertEquals(fullRun(sellers(), files), snapshotRun(snapshot, sellers(), files, 1));
+        assertEquals(3, snapshot.getParsedFiles());
+
+        File fourth = write(4, "4;10;7", "99;10;1");
+        rewrite(second, "2;10;9", "2;99;4");
+        files = new File[] {first, second, fourth};
+        assertEquals(fullRun(sellers(), files), snapshotRun(snapshot, sellers(), files, 3));
+        assertEquals(2, snapshot.getParsedFiles());
+        assertEquals(1, snapshot.getReusedFiles());
+        assertEquals(1, snapshot.getRemovedFiles());
+    }
+
+    @Test
+    public void changesBringTheTotalsOfTheLastUpdateUpToDate() throws IOException {
+        File first = write(1, "1;10;2", "1;20;1");
+        File second = write(2, "2;10;1");
+        SalesSnapshot snapshot = new SalesSnapshot();
+        List<Seller> sellers = sellers();
+        List<Product> products = products();
+        SalesAggregator aggregator = new SalesAggregator(sellers, products);
+        snapshot.update(new File[] {first, second}, new ReadStats(), Quarantine.recording(), 1, aggregator, CATALOG);
+        aggregator.apply(snapshot.getTotal());
+
+        rewrite(first, "1;30;4");
+        File third = write(3, "3;20;6", "3;10;1");
+        File[] files = {first, third};
+        snapshot.update(files, new ReadStats(), Quarantine.recording(), 1, aggregator, CATALOG);
+        aggregator.apply(snapshot.getChanges());
+
+        assertEquals(fullRun(sellers(), files).totals, totals(sellers, products));
+    }
+
+    @Test
+    public void savedSnapshotIsReusedWithTheRejectionsOfItsFiles() throws IOException {
+        File first = write(1, "1;10;2", "1;x;1", "7;10;1");
+        File second = write(2, "2;10;1", "2;99;3", "2;20");
+        File[] files = {first, second};
+        File saved = new File(folder.getRoot(), "instantanea.bin");
+        SalesSnapshot snapshot = new SalesSnapshot();
+        snapshotRun(snapshot, sellers(), files, 1);
+        snapshot.save(saved);
+
+        SalesSnapshot loaded = SalesSnapshot.load(saved);
+        Run reused = snapshotRun(loaded, sellers(), files, 1);
+        assertEquals(0, loaded.getParsedFiles());
+        assertEquals(2, loaded.getReusedFiles());
+        assertEquals(fullRun(sellers(), files), reused);
+        assertEquals(Arrays.asList(
+                first.getName() + ":3:INVALID_NUMBER",
+                first.getName() + ":4:UNKNOWN_SELLER",
+                second.getName() + ":3:UNKNOWN_PRODUCT",
+                second.getName() + ":4:FIELD_COUNT"), reused.rejections);
+    }
+
+    @Test
+    public void changedCatalogParsesEveryFileAgain() throws IOException {
+        File first = write(1, "1;10;2", "5;10;3");
+        File second = write(2, "2;20;1");
+        File[] files = {first, second};
+        SalesSnapshot snapshot = new SalesSnapshot();
+        snapshotRun(snapshot, sellers(), files, 1);
+
+        List<Seller> more = sellers();
+        more.add(new Seller("CE", 5, "Laura", "Prez"));
+        Quarantine quarantine = Quarantine.recording();
+        List<Product> products = products();
+        SalesAggregator aggregator = new SalesAggregator(more, products);
+        snapshot.update(files, new ReadStats(), quarantine, 1, aggregator, CATALOG + 1);
+        aggregator.apply(snapshot.getTotal());
+
+        assertEquals(2, snapshot.getParsedFiles());
+        assertEquals(fullRun(sellers(more), files), new Run(totals(more, products), rejections(quarantine)));
+    }
+
+    private Run fullRun(List<Seller> sellers, File[] files) throws IOException {
+        List<Product> products = products();
+        SalesAggregator aggregator = new SalesAggregator(sellers, products);
+        Quarantine quarantine = Quarantine.recording();
+        for (File file : files) {
+            FileReader.readSalesFile(file, aggregator, new ReadStats(), quarantine);
+        }
+        return new Run(totals(sellers, products), rejections(quarantine));
+    }
+
+    private static Run snapshotRun(SalesSnapshot snapshot, List<Seller> sellers, File[] files, int threads)
+            throws IOException {
+        List<Product> products = products();
+        SalesAggregator aggregator = new SalesAggregator(sellers, products);
+        Quarantine quarantine = Quarantine.recording();
+        snapshot.update(files, new ReadStats(), quarantine, threads, aggregator, CATALOG);
+        aggregator.apply(snapshot.getTotal());
+        return new Run(totals(sellers, products), rejections(quarantine));
+    }
+
+    private static List<Seller> sellers() {
+        return new ArrayList<>(Arrays.asList(
+            new Seller("CC", 1, "Juan", "Garca"),
+            new Seller("CC", 2, "Mara", "Lpez"),
+            new Seller("TI", 3, "Carlos", "Martnez"),
+            new Seller("PP", 4, "Ana", "Gonzlez")));
+    }
+
+    // Fresh sellers with the same catalog as the given ones, without their totals
+    private static List<Seller> sellers(List<Seller> catalog) {
+        List<Seller> sellers = new ArrayList<>();
+        for (Seller seller : catalog) {
+            sellers.add(new Seller(seller.getDocumentType(), seller.getDocumentNumber(),
+                    seller.getFirstName(), seller.getLastName()));
+        }
+        return sellers;
+    }
+
+    private static List<Product> products() {
+        return Arrays.asList(
+            new Product(10, "Laptop", 150000L),
+            new Product(20, "Tablet", 45050L),
+            new Product(30, "Cmara", 99L));
+    }
+
+    private static List<String> totals(List<Seller> sellers, List<Product> products) {
+        List<String> totals = new ArrayList<>();
+        for (Seller seller : sellers) {
+            totals.add(seller.getDocumentNumber() + "=" + seller.getTotalSalesCents());
+        }
+        for (Product product : products) {
+            totals.add(product.getId() + "x" + product.getSoldQuantity());
+        }
+        return totals;
+    }
+
+    private static List<String> rejections(Quarantine quarantine) {
+        List<String> rejections = new ArrayList<>();
+        for (Quarantine.Rejection rejection : quarantine.getRejections()) {
+            rejections.add(rejection.source + ":" + rejection.line + ":" + rejection.reason);
+        }
+        return rejections;
+    }
+
+    private File write(long document, String... lines) throws IOException {
+        File file = new File(folder.getRoot(), "Vendedor_" + document + ".txt");
+        rewrite(file, lines);
+        return file;
+    }
+
+    // Each write gets a later modification time, so the snapshot sees it even on coarse clocks
+    private void rewrite(File file, String... lines) throws IOException {
+        StringBuilder content = new StringBuilder("NmeroDocumentoVendedor;IDProducto;CantidadProductoVendido\n");
+        for (String line : lines) {
+            content.append(line).append('\n');
+        }
+        Files.write(file.toPath(), content.toString().getBytes(StandardCharsets.ISO_8859_1));
+        modified += 1000;
+        file.setLastModified(modified);
+    }
+
+    // The totals and rejected lines of a run, compared as a whole
+    private static final class Run {
+        final List<String> totals;
+        final List<String> rejections;
+
+        Run(List<String> totals, List<String> rejections) {
+            this.totals = totals;
+            this.rejections = rejections;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Run && totals.equals(((Run) other).totals)
+                    && rejections.equals(((Run) other).rejections);
+        }
+
+        @Override
+        public int hashCode() {
+            return totals.hashCode() * 31 + rejections.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return totals + " " + rejections;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package sales.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+public class DecimalsTest {
+
+    @Test
+    public void thirdDecimalRoundsHalfUp() {
+        assertEquals(40763, Decimals.parseCents("407,63"));
+        assertEquals(40763, Decimals.parseCents("407,634"));
+        assertEquals(40764, Decimals.parseCents("407,635"));
+        assertEquals(40763, Decimals.parseCents("407,6349999"));
+        assertEquals(100, Decimals.parseCents("0,995"));
+        assertEquals(123450, Decimals.parseCents("1.234,5"));
+        // As %.2f does, from the shortest decimal form of the double
+        assertEquals(101, Decimals.toCents(1.005));
+        assertEquals(100, Decimals.toCents(1.004999));
+    }
+
+    @Test
+    public void negativePricesRoundAwayFromZero() {
+        assertEquals(-40763, Decimals.parseCents("-407,63"));
+        assertEquals(-40764, Decimals.parseCents("-407,635"));
+        assertEquals(-5, Decimals.parseCents("-0,05"));
+        assertEquals(-101, Decimals.toCents(-1.005));
+        assertEquals("-0,05", Decimals.formatCents(-5, ','));
+        assertEquals("-407,63", Decimals.formatCents(-40763, ','));
+    }
+
+    @Test
+    public void amountsPastALongOfCentsAreRejected() {
+        assertEquals(Long.MAX_VALUE, Decimals.parseCents("92233720368547758,07"));
+        assertEquals(-Long.MAX_VALUE, Decimals.parseCents("-92233720368547758,07"));
+        for (String text : new String[] {"92233720368547758,08", "92233720368547758,075", "92233720368547759",
+                                         "-92233720368547758,09", "99999999999999999999"}) {
+            try {
+                Decimals.parseCents(text);
+                fail("Accepted " + text);
+            } catch (NumberFormatException e) {
+                // Expected
+            }
+        }
+        try {
+            Decimals.toCents(1e17);
+            fail("Accepted 1e17");
+        } catch (ArithmeticException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void formattedAmountsParseBack() {
+        for (long cents : new long[] {0, 1, 5, 99, 100, 101, 40763, -1, -99, -100, -40763,
+                                      Long.MAX_VALUE, -Long.MAX_VALUE}) {
+            assertEquals(cents, Decimals.parseCents(Decimals.formatCents(cents, ',')));
+        }
+        assertEquals("92233720368547758,07", Decimals.formatCents(Long.MAX_VALUE, ','));
+        assertEquals("0,00", Decimals.formatCents(0, ','));
+    }
+}
@@ -0,0 +1,69 @@
+package sales.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class LruCacheTest {
+
+    @Test
+    public void leastRecentlyUsedEntriesAreDroppedUntilTheWeightFits() {
+        LruCache<String, String> cache = new LruCache<>(10, String::length);
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        cache.get("a");
+        cache.put("c", "ccc");
+
+        assertNull(cache.get("b"));
+        assertEquals("aaaa", cache.get("a"));
+        assertEquals("ccc", cache.get("c"));
+        assertEquals(7, cache.weight());
+    }
+
+    @Test
+    public void replacingAValueReplacesItsWeight() {
+        LruCache<String, String> cache = new LruCache<>(10, String::length);
+        cache.put("a", "aaaa");
+        cache.put("a", "aa");
+
+        assertEquals(1, cache.size());
+        assertEquals(2, cache.weight());
+    }
+
+    @Test
+    public void replacingAValueWithAnOversizedOneRemovesTheEntry() {
+        LruCache<String, String> cache = new LruCache<>(10, String::length);
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        cache.put("a", "aaaaaaaaaaa");
+
+        assertNull(cache.get("a"));
+        assertEquals("bbbb", cache.get("b"));
+        assertEquals(1, cache.size());
+        assertEquals(4, cache.weight());
+    }
+
+    @Test
+    public void oversizedValueLeavesTheOtherEntriesAlone() {
+        LruCache<String, String> cache = new LruCache<>(10, String::length);
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbbbbbbbbb");
+
+        assertNull(cache.get("b"));
+        assertEquals("aaaa", cache.get("a"));
+        assertEquals(4, cache.weight());
+    }
+
+    @Test
+    public void defaultWeightBoundsTheNumberOfEntries() {
+        LruCache<Integer, String> cache = new LruCache<>(2);
+        cache.put(1, "uno");
+        cache.put(2, "dos");
+        cache.put(3, "tres");
+
+        assertNull(cache.get(1));
+        assertEquals(2, cache.size());
+        assertEquals(2, cache.weight());
+    }
+}
@@ -0,0 +1,173 @@
+package sales.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import sales.report.processor.SalesFileParser;
+
+public class ReadAheadInputStreamTest {
+    private static final int CHUNK_SIZE = 16;
+    private static final int CHUNKS_AHEAD = 2;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void streamLongerThanTheChunksIsReadBackExactly() throws IOException {
+        // Many times the chunks in flight, and not a whole number of chunks
+        byte[] data = new byte[CHUNK_SIZE * (CHUNKS_AHEAD + 2) * 50 + 5];
+        new Random(3).nextBytes(data);
+
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        try (InputStream in = readAhead(new ByteArrayInputStream(data))) {
+            // Single bytes and odd-sized reads, so reads straddle the chunk boundaries
+            byte[] buffer = new byte[CHUNK_SIZE + 3];
+            int n;
+            while (true) {
+                int b = in.read();
+                if (b < 0) {
+                    break;
+                }
+                read.write(b);
+                if ((n = in.read(buffer, 1, buffer.length - 1)) < 0) {
+                    break;
+                }
+                read.write(buffer, 1, n);
+            }
+            assertEquals(-1, in.read());
+        }
+        assertArrayEquals(data, read.toByteArray());
+    }
+
+    @Test
+    public void ioExceptionOfTheSourceReachesTheReader() throws IOException {
+        IOException failure = new IOException("disco");
+        try (InputStream in = readAhead(new FailingStream(CHUNK_SIZE * 5 + 3, failure))) {
+            drain(in);
+            fail("The failure of the source was not reported");
+        } catch (IOException e) {
+            assertSame(failure, e);
+        }
+    }
+
+    @Test
+    public void runtimeExceptionOfTheSourceComesBackWrapped() throws IOException {
+        IllegalStateException failure = new IllegalStateException("estado");
+        try (InputStream in = readAhead(new FailingStream(CHUNK_SIZE * 2, failure))) {
+            drain(in);
+            fail("The failure of the source was not reported");
+        } catch (IOException e) {
+            assertSame(failure, e.getCause());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void closeBeforeTheEndDoesNotHang() throws IOException {
+        EndlessStream source = new EndlessStream();
+        InputStream in = readAhead(source);
+        assertTrue(in.read(new byte[CHUNK_SIZE]) > 0);
+        // The background thread is now blocked waiting for a free chunk
+        in.close();
+        assertTrue(source.closed);
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    public void gzipFileParsesAsThePlainFile() throws IOException {
+        StringBuilder content = new StringBuilder("NmeroDocumentoVendedor;IDProducto;CantidadProductoVendido\n");
+        Random random = new Random(5);
+        for (int i = 0; i < 100_000; i++) {
+            content.append(7).append(';').append(random.nextInt(50) + 1).append(';')
+                   .append(random.nextInt(9) + 1).append(i % 4 == 0 ? "\r\n" : "\n");
+        }
+        byte[] bytes = content.toString().getBytes(StandardCharsets.ISO_8859_1);
+        File plain = new File(folder.getRoot(), "Vendedor_7.txt");
+        Files.write(plain.toPath(), bytes);
+        File compressed = new File(folder.getRoot(), "Vendedor_7.txt.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(compressed.toPath()))) {
+            out.write(bytes);
+        }
+
+        try (InputStream in = InputCodecs.open(compressed)) {
+            assertTrue(in instanceof ReadAheadInputStream);
+        }
+        assertEquals(parse(plain), parse(compressed));
+    }
+
+    private static InputStream readAhead(InputStream source) {
+        return new ReadAheadInputStream(source, CHUNK_SIZE, CHUNKS_AHEAD, "prueba");
+    }
+
+    private static long drain(InputStream in) throws IOException {
+        long total = 0;
+        byte[] buffer = new byte[7];
+        int n;
+        while ((n = in.read(buffer)) >= 0) {
+            total += n;
+        }
+        return total;
+    }
+
+    private static List<String> parse(File file) throws IOException {
+        List<String> sales = new ArrayList<>();
+        new SalesFileParser().parse(file.toPath(),
+                (document, productId, quantity) -> sales.add(document + ";" + productId + ";" + quantity));
+        return sales;
+    }
+
+    // Gives a number of bytes, then fails with the given exception
+    private static final class FailingStream extends InputStream {
+        private final Throwable failure;
+        private int remaining;
+
+        FailingStream(int length, Throwable failure) {
+            this.remaining = length;
+            this.failure = failure;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining == 0) {
+                if (failure instanceof IOException) {
+                    throw (IOException) failure;
+                }
+                throw (RuntimeException) failure;
+            }
+            remaining--;
+            return 'x';
+        }
+    }
+
+    // Never ends, and remembers whether it was closed
+    private static final class EndlessStream extends InputStream {
+        volatile boolean closed;
+
+        @Override
+        public int read() {
+            return 'x';
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package sales.report.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import sales.report.generator.ColumnarSalesWriter;
+import sales.report.generator.ZipfDistribution;
+import sales.report.model.Product;
+import sales.report.model.Seller;
+import sales.util.CsvWriter;
+
+/**
+ * The Dataset class builds synthetic sellers, products and sales for the benchmarks. Sales are
+ * held as primitive columns; product popularity follows a Zipf distribution with the given
+ * exponent, and the same seed always yields the same data.
+ */
+final class Dataset {
+    final List<Seller> sellers;
+    final List<Product> products;
+    final long[] documents;
+    final int[] productIds;
+    final int[] quantities;
+
+    Dataset(int sellerCount, int productCount, int salesCount, double zipfExponent, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        sellers = new ArrayList<>(sellerCount);
+        for (int i = 0; i < sellerCount; i++) {
+            sellers.add(new Seller("CC", 1000000000L + i * 7919L, "Juan", "Garca"));
+        }
+        products = new ArrayList<>(productCount);
+        for (int i = 1; i <= productCount; i++) {
+            products.add(new Product(i, "Producto" + (i % 6), 1000 + random.nextInt(99000)));
+        }
+
+        ZipfDistribution popularity = new ZipfDistribution(productCount, zipfExponent);
+        documents = new long[salesCount];
+        productIds = new int[salesCount];
+        quantities = new int[salesCount];
+        for (int i = 0; i < salesCount; i++) {
+            documents[i] = sellers.get(random.nextInt(sellerCount)).getDocumentNumber();
+            productIds[i] = popularity.sample(random);
+            quantities[i] = random.nextInt(10) + 1;
+        }
+    }
+
+    /**
+     * Returns copies of the sellers with no sales, so a benchmark can add into them without
+     * changing the dataset.
+     */
+    List<Seller> copySellers() {
+        List<Seller> copies = new ArrayList<>(sellers.size());
+        for (Seller seller : sellers) {
+            copies.add(new Seller(seller.getDocumentType(), seller.getDocumentNumber(),
+                                  seller.getFirstName(), seller.getLastName()));
+        }
+        return copies;
+    }
+
+    /**
+     * Returns copies of the products with nothing sold.
+     */
+    List<Product> copyProducts() {
+        List<Product> copies = new ArrayList<>(products.size());
+        for (Product product : products) {
+            copies.add(new Product(product.getId(), product.getName(), product.getNameCode(), product.getPriceCents()));
+        }
+        return copies;
+    }
+
+    /**
+     * Writes the sales as a semicolon-separated Vendedor_*.txt file.
+     */
+    File writeText() throws IOException {
+        File file = File.createTempFile("Vendedor_", ".txt");
+        file.deleteOnExit();
+        try (CsvWriter writer = new CsvWriter(file)) {
+            writer.writeLine("NumeroDocumentoVendedor;IDProducto;CantidadProductoVendido");
+            for (int i = 0; i < documents.length; i++) {
+                writer.write(documents[i]).separator().write(productIds[i]).separator().write(quantities[i]).endRow();
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Writes the sales as a columnar Vendedor_*.col file.
+     */
+    File writeColumnar() throws IOException {
+        File file = File.createTempFile("Vendedor_", ".col");
+        file.deleteOnExit();
+        try (ColumnarSalesWriter writer = new ColumnarSalesWriter(file)) {
+            for (int i = 0; i < documents.length; i++) {
+                writer.write(documents[i], productIds[i], quantities[i]);
+            }
+        }
+        return file;
+    }
+}
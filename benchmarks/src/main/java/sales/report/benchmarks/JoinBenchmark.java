@@ -0,0 +1,146 @@
+package sales.report.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sales.report.model.Product;
+import sales.report.model.ProductStore;
+import sales.report.model.Seller;
+import sales.report.model.SellerStore;
+import sales.report.processor.ProductIndex;
+import sales.report.processor.SalesAggregator;
+import sales.report.processor.SalesTally;
+import sales.report.processor.SellerIndex;
+import sales.report.processor.StoreAggregator;
+
+/**
+ * Measures the join and aggregate phases on sales already held in memory: resolving sellers
+ * and products through their indexes, and reducing sales into totals. Scores are per sale.
+ * Aggregators are built before each invocation, outside the measurement, over fresh copies
+ * of the sellers and products, so the scores cover only the join and totals never carry over
+ * from one invocation to the next.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JoinBenchmark {
+    private static final int SALES = 1000000;
+
+    @Param({"1000", "100000"})
+    public int sellers;
+
+    @Param({"1000", "100000"})
+    public int products;
+
+    @Param({"0", "1.1"})
+    public double zipf;
+
+    private Dataset dataset;
+    private SellerIndex sellerIndex;
+    private ProductIndex productIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataset = new Dataset(sellers, products, SALES, zipf, 42);
+        sellerIndex = new SellerIndex(dataset.sellers);
+        productIndex = new ProductIndex(dataset.products);
+    }
+
+    /**
+     * A SalesAggregator over fresh sellers and products.
+     */
+    @State(Scope.Thread)
+    public static class HeapAggregator {
+        SalesAggregator aggregator;
+
+        @Setup(Level.Invocation)
+        public void setUp(JoinBenchmark benchmark) {
+            aggregator = new SalesAggregator(benchmark.dataset.copySellers(), benchmark.dataset.copyProducts());
+        }
+    }
+
+    /**
+     * A StoreAggregator over fresh off-heap stores of the sellers and products.
+     */
+    @State(Scope.Thread)
+    public static class OffHeapAggregator {
+        StoreAggregator aggregator;
+
+        @Setup(Level.Invocation)
+        public void setUp(JoinBenchmark benchmark) {
+            SellerStore sellerStore = new SellerStore(benchmark.sellers);
+            for (Seller seller : benchmark.dataset.sellers) {
+                sellerStore.add(seller.getDocumentType(), seller.getDocumentNumber(), seller.getFirstName(), seller.getLastName());
+            }
+            ProductStore productStore = new ProductStore(benchmark.products);
+            for (Product product : benchmark.dataset.products) {
+                productStore.add(product.getId(), product.getName(), product.getPriceCents());
+            }
+            aggregator = new StoreAggregator(sellerStore, productStore);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SALES)
+    public long lookupSellers() {
+        long sum = 0;
+        for (long document : dataset.documents) {
+            sum += sellerIndex.slotOf(document);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SALES)
+    public long lookupProducts() {
+        long sum = 0;
+        for (int productId : dataset.productIds) {
+            sum += productIndex.slotOf(productId);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SALES)
+    public SalesAggregator aggregate(HeapAggregator state) {
+        SalesAggregator aggregator = state.aggregator;
+        for (int i = 0; i < SALES; i++) {
+            aggregator.onSale(dataset.documents[i], dataset.productIds[i], dataset.quantities[i]);
+        }
+        return aggregator;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SALES)
+    public StoreAggregator aggregateOffHeap(OffHeapAggregator state) {
+        StoreAggregator aggregator = state.aggregator;
+        for (int i = 0; i < SALES; i++) {
+            aggregator.onSale(dataset.documents[i], dataset.productIds[i], dataset.quantities[i]);
+        }
+        return aggregator;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SALES)
+    public SalesTally tally() {
+        SalesTally tally = new SalesTally();
+        for (int i = 0; i < SALES; i++) {
+            tally.onSale(dataset.documents[i], dataset.productIds[i], dataset.quantities[i]);
+        }
+        return tally;
+    }
+}
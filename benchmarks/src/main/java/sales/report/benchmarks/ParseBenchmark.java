@@ -0,0 +1,96 @@
+package sales.report.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sales.report.processor.ColumnarSalesReader;
+import sales.report.processor.SaleHandler;
+import sales.report.processor.SalesFileParser;
+
+/**
+ * Measures the ingest phase: parsing one sales file into primitive sales. The
+ * {@code megabytes} counter is reported per second, i.e. as input throughput in MB/s
+ * (MB = 2^20 bytes), and the {@code lines} counter as lines per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int lines;
+
+    @Param({"0", "1.1"})
+    public double zipf;
+
+    private File textFile;
+    private File columnarFile;
+    private final SalesFileParser parser = new SalesFileParser();
+    private final ColumnarSalesReader columnarReader = new ColumnarSalesReader();
+
+    /**
+     * Megabytes and lines consumed, reported by JMH as rates.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Throughput {
+        public double megabytes;
+        public long lines;
+
+        void add(long bytes, long lines) {
+            megabytes += bytes / (1024.0 * 1024.0);
+            this.lines += lines;
+        }
+    }
+
+    /**
+     * Sums the parsed fields so that parsing cannot be optimised away.
+     */
+    private static final class Checksum implements SaleHandler {
+        long value;
+
+        @Override
+        public void onSale(long sellerDocumentNumber, int productId, int quantity) {
+            value += sellerDocumentNumber + productId + quantity;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Dataset dataset = new Dataset(1000, 1000, lines, zipf, 42);
+        textFile = dataset.writeText();
+        columnarFile = dataset.writeColumnar();
+    }
+
+    @Benchmark
+    public long parseText(Throughput throughput) throws IOException {
+        Checksum checksum = new Checksum();
+        parser.parse(textFile.toPath(), checksum);
+        throughput.add(textFile.length(), lines);
+        return checksum.value;
+    }
+
+    @Benchmark
+    public long readColumnar(Throughput throughput) throws IOException {
+        Checksum checksum = new Checksum();
+        columnarReader.parse(columnarFile.toPath(), checksum);
+        throughput.add(columnarFile.length(), lines);
+        return checksum.value;
+    }
+}
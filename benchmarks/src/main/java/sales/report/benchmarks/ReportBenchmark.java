@@ -0,0 +1,134 @@
+package sales.report.benchmarks;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sales.report.model.Seller;
+import sales.report.model.SellerStore;
+import sales.report.processor.ReportGenerator;
+import sales.util.CsvWriter;
+
+/**
+ * Measures the report phase: ranking sellers and emitting CSV rows, through the same
+ * {@link ReportGenerator} entry points the processor uses for lists of sellers, top-K reports
+ * and off-heap stores. Output goes to a writer that only counts characters, so the score
+ * reflects ranking and formatting rather than disk speed. The reports are ISO-8859-1, one
+ * byte per character, so the {@code megabytes} counter, reported per second, is the output
+ * throughput in MB/s (MB = 2^20 bytes).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportBenchmark {
+    @Param({"10000", "1000000"})
+    public int sellers;
+
+    private List<Seller> sellerList;
+    private SellerStore sellerStore;
+
+    /**
+     * Megabytes emitted, reported by JMH as a rate.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Throughput {
+        public double megabytes;
+
+        void add(long chars) {
+            megabytes += chars / (1024.0 * 1024.0);
+        }
+    }
+
+    /**
+     * A writer that discards its input and counts the characters written.
+     */
+    private static final class CountingWriter extends Writer {
+        long count;
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            count += length;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Dataset dataset = new Dataset(sellers, 100, 0, 0, 42);
+        sellerList = dataset.sellers;
+        sellerStore = new SellerStore(sellers);
+        SplittableRandom random = new SplittableRandom(7);
+        for (Seller seller : sellerList) {
+            long cents = random.nextLong(1, 100000000L);
+            seller.addSale(cents);
+            int slot = sellerStore.add(seller.getDocumentType(), seller.getDocumentNumber(),
+                    seller.getFirstName(), seller.getLastName());
+            sellerStore.addSale(slot, cents);
+        }
+    }
+
+    @Benchmark
+    public long emitSellersCsv(Throughput throughput) throws IOException {
+        CountingWriter out = new CountingWriter();
+        try (CsvWriter writer = new CsvWriter(out)) {
+            ReportGenerator.writeSellerRows(writer, sellerList);
+        }
+        throughput.add(out.count);
+        return out.count;
+    }
+
+    @Benchmark
+    public long rankAll(Throughput throughput) throws IOException {
+        CountingWriter out = new CountingWriter();
+        try (CsvWriter writer = new CsvWriter(out)) {
+            ReportGenerator.writeSellers(writer, sellerList, 0);
+        }
+        throughput.add(out.count);
+        return out.count;
+    }
+
+    @Benchmark
+    public long rankTop100(Throughput throughput) throws IOException {
+        CountingWriter out = new CountingWriter();
+        try (CsvWriter writer = new CsvWriter(out)) {
+            ReportGenerator.writeSellers(writer, sellerList, 100);
+        }
+        throughput.add(out.count);
+        return out.count;
+    }
+
+    @Benchmark
+    public long rankStore(Throughput throughput) throws IOException {
+        CountingWriter out = new CountingWriter();
+        try (CsvWriter writer = new CsvWriter(out)) {
+            ReportGenerator.writeSellers(writer, sellerStore);
+        }
+        throughput.add(out.count);
+        return out.count;
+    }
+}